@@ -0,0 +1,128 @@
+package searchengine.utils;
+
+import org.openjdk.jmh.annotations.*;
+import searchengine.config.SearchResultSettings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сниппет по сохраненным смещениям слов запроса: однопроходный SnippetCreator
+ * против прежнего построения (фрагменты от первого вхождения каждой леммы,
+ * вхождения отбираются потоками и ищутся двоичным поиском для каждого фрагмента).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnippetCreatorBenchmark {
+    private static final String[] WORDS = {"поиск", "индекс", "страница", "сайт", "запрос", "лемма", "текст"
+            , "слово", "ссылка", "ответ", "данные", "список", "результат", "порядок", "время", "часть"};
+    private static final int QUERY_WORD_COUNT = 3;
+    @Param({"10000", "1000000"})
+    private int textLength;
+    private String text;
+    private List<int[]> lemmaOffsets;
+    private SnippetCreator snippetCreator;
+    private SearchResultSettings settings;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        List<List<Integer>> offsets = new ArrayList<>();
+        for (int i = 0; i < QUERY_WORD_COUNT; i++) {
+            offsets.add(new ArrayList<>());
+        }
+        while (builder.length() < textLength) {
+            int word = random.nextInt(WORDS.length);
+            if (word < QUERY_WORD_COUNT) {
+                offsets.get(word).add(builder.length());
+            }
+            builder.append(WORDS[word]).append(random.nextInt(10) == 0 ? ". " : " ");
+        }
+        text = builder.toString();
+        lemmaOffsets = offsets.stream().map(o -> o.stream().mapToInt(Integer::intValue).toArray()).toList();
+
+        settings = new SearchResultSettings();
+        settings.setSnippetMaxSize(180);
+        settings.setSnippetPartSize(30);
+        snippetCreator = new SnippetCreator(settings, null);
+    }
+
+    @Benchmark
+    public String singlePass() {
+        return snippetCreator.getSnippet(text, lemmaOffsets);
+    }
+
+    @Benchmark
+    public String previous() {
+        return PreviousSnippetCreator.getSnippet(text, lemmaOffsets, settings);
+    }
+
+    /**
+     * Построение сниппета по смещениям до однопроходного SnippetCreator.
+     */
+    private static class PreviousSnippetCreator {
+        private final String text;
+        private final int[] hits;
+        private final StringBuilder builder = new StringBuilder();
+
+        PreviousSnippetCreator(String text, int[] hits) {
+            this.text = text;
+            this.hits = hits;
+        }
+
+        static String getSnippet(String text, List<int[]> lemmaOffsets, SearchResultSettings settings) {
+            int textLength = text.length();
+            int[] hits = lemmaOffsets.stream().flatMapToInt(Arrays::stream)
+                    .filter(o -> o < textLength).sorted().distinct().toArray();
+            int[] partStarts = lemmaOffsets.stream().filter(o -> o.length > 0).mapToInt(o -> o[0])
+                    .filter(o -> o < textLength).sorted().distinct().toArray();
+
+            PreviousSnippetCreator snippet = new PreviousSnippetCreator(text, hits);
+            int partEnd = 0;
+            for (int partStart : partStarts) {
+                if (snippet.builder.length() >= settings.getSnippetMaxSize()) {
+                    break;
+                }
+                if (partStart >= partEnd) {
+                    partEnd = snippet.appendPart(partStart, getPartEndIndex(text, partStart
+                            , settings.getSnippetPartSize()));
+                }
+            }
+            return snippet.builder.toString();
+        }
+
+        private static int getPartEndIndex(String text, int partStart, int partSize) {
+            int endIndex = Math.min(text.length(), partStart + partSize);
+            while (endIndex < text.length() && !Character.isWhitespace(text.charAt(endIndex))) {
+                endIndex++;
+            }
+            return endIndex;
+        }
+
+        private int appendPart(int start, int end) {
+            builder.append(builder.isEmpty() ? "" : "...");
+            int cursor = start;
+            int hitIndex = Arrays.binarySearch(hits, start);
+            for (int i = hitIndex < 0 ? -hitIndex - 1 : hitIndex; i < hits.length && hits[i] < end; i++) {
+                if (hits[i] < cursor) {
+                    continue;
+                }
+                int wordEnd = TextTokenizer.findTokenBoundary(text, hits[i] + 1, text.length());
+                builder.append(text, cursor, hits[i]).append("<b>").append(text, hits[i], wordEnd).append("</b>");
+                cursor = wordEnd;
+            }
+            if (cursor < end) {
+                builder.append(text, cursor, end);
+            }
+            return Math.max(cursor, end);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package searchengine.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Подсчет лемм страницы: HashMap с упаковкой счетчиков, как считалось раньше,
+ * против TermFrequencyMap - нового и переиспользуемого после clear().
+ * Леммы распределены по закону Ципфа, как слова в тексте.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TermFrequencyMapBenchmark {
+    @Param({"20000"})
+    private int tokenCount;
+    @Param({"5000"})
+    private int vocabularySize;
+    private String[] tokens;
+    private final TermFrequencyMap reusedFrequencies = new TermFrequencyMap();
+
+    @Setup
+    public void setUp() {
+        String[] vocabulary = new String[vocabularySize];
+        double[] cumulativeWeights = new double[vocabularySize];
+        double totalWeight = 0;
+        for (int i = 0; i < vocabularySize; i++) {
+            vocabulary[i] = "лемма" + i;
+            totalWeight += 1.0 / (i + 1);
+            cumulativeWeights[i] = totalWeight;
+        }
+
+        Random random = new Random(42);
+        tokens = new String[tokenCount];
+        for (int i = 0; i < tokenCount; i++) {
+            int index = Arrays.binarySearch(cumulativeWeights, random.nextDouble() * totalWeight);
+            tokens[i] = vocabulary[Math.min(vocabularySize - 1, index < 0 ? -index - 1 : index)];
+        }
+    }
+
+    @Benchmark
+    public Map<String, Integer> hashMap() {
+        Map<String, Integer> lemmas = new HashMap<>();
+        for (String token : tokens) {
+            if (lemmas.containsKey(token)) {
+                lemmas.put(token, lemmas.get(token) + 1);
+            } else {
+                lemmas.put(token, 1);
+            }
+        }
+        return lemmas;
+    }
+
+    @Benchmark
+    public TermFrequencyMap termFrequencyMap() {
+        TermFrequencyMap frequencies = new TermFrequencyMap();
+        for (String token : tokens) {
+            frequencies.increment(token);
+        }
+        return frequencies;
+    }
+
+    @Benchmark
+    public int reusedTermFrequencyMap() {
+        reusedFrequencies.clear();
+        for (String token : tokens) {
+            reusedFrequencies.increment(token);
+        }
+        return reusedFrequencies.size();
+    }
+}
@@ -0,0 +1,17 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "fetcher-settings")
+public class FetcherSettings {
+    private String type = "http-client";
+    private int timeout = 5000;
+    private int maxBodySize = 2 * 1024 * 1024;
+    private boolean http2 = true;
+}
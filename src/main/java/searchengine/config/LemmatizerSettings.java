@@ -0,0 +1,17 @@
+package searchengine.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "lemmatizer-settings")
+public class LemmatizerSettings {
+    private int wordCacheSize = 100000;
+    private int parallelThreshold = 256 * 1024;
+    private int parallelChunkSize = 64 * 1024;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+}
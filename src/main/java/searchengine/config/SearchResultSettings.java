@@ -11,9 +11,15 @@ import org.springframework.stereotype.Component;
 @ConfigurationProperties(prefix = "search-result-settings")
 public class SearchResultSettings {
     private int defaultSearchResultLimit;
-    private int searchPageCountLimit;
-    private int searchPageStartCountLimit;
-    private int searchLemmasCountForPageLimit;
     private int snippetMaxSize;
     private int snippetPartSize;
+    private int proximityWindow;
+    private double proximityBoost;
+    private double bm25K1;
+    private double bm25B;
+    private int resultCacheSize;
+    private long resultCacheTtl;
+    private int snippetThreadCount;
+    private int snippetQueueSize;
+    private long snippetTimeout;
 }
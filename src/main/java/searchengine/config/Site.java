@@ -8,4 +8,12 @@ import lombok.Setter;
 public class Site {
     private String url;
     private String name;
+    private long crawlDelay = 150;
+    private int bloomFilterCapacity;
+    private boolean respectRobotsTxt = true;
+    private boolean useSitemaps = true;
+    private int maxDepth;
+    private int maxPages;
+    private long maxBytes;
+    private long maxCrawlTime;
 }
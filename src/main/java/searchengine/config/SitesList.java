@@ -13,4 +13,13 @@ import java.util.List;
 @ConfigurationProperties(prefix = "indexing-settings")
 public class SitesList {
     private List<Site> sites;
+    private int fetchThreadCount = 16;
+    private String checkpointDirectory = "checkpoints";
+    private long checkpointInterval = 60000;
+    private int parseThreadCount = 4;
+    private int parseQueueCapacity = 200;
+    private int writeThreadCount = 1;
+    private int writeQueueCapacity = 200;
+    private int writeBatchSize = 50;
+    private long writeBatchWaitTime = 500;
 }
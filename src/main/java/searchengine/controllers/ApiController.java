@@ -12,8 +12,10 @@ import searchengine.dto.request.IndexPageRequest;
 import searchengine.dto.request.SearchRequest;
 import searchengine.dto.response.CommonResponse;
 import searchengine.dto.response.ErrorResponse;
+import searchengine.dto.response.MetricsResponse;
 import searchengine.dto.response.SuccessResponse;
 import searchengine.dto.response.SearchResponse;
+import searchengine.services.MetricsService;
 import searchengine.services.SearchService;
 import searchengine.services.SiteIndexingService;
 import searchengine.services.StatisticsService;
@@ -26,6 +28,7 @@ public class ApiController {
     private final StatisticsService statisticsService;
     private final SiteIndexingService siteIndexingService;
     private final SearchService searchService;
+    private final MetricsService metricsService;
 
     @GetMapping("/statistics")
     public ResponseEntity<String> statistics() throws JsonProcessingException {
@@ -46,11 +49,12 @@ public class ApiController {
     }
 
     @GetMapping("/startIndexing")
-    public ResponseEntity<CommonResponse> startIndexing() {
+    public ResponseEntity<CommonResponse> startIndexing(
+            @RequestParam(defaultValue = "false") boolean incremental) {
         CommonResponse response;
 
         try{
-            response = siteIndexingService.indexAllSites();
+            response = siteIndexingService.indexAllSites(incremental);
         }catch (Exception e){
             response = new ErrorResponse();
             ((ErrorResponse)response).setError("Ошибка индексации сайтов");
@@ -77,6 +81,37 @@ public class ApiController {
         return new ResponseEntity<>(response, isSuccess ? HttpStatus.OK : HttpStatus.BAD_REQUEST);
     }
 
+    @GetMapping("/resumeIndexing")
+    public ResponseEntity<CommonResponse> resumeIndexing() {
+        CommonResponse response;
+
+        try{
+            response = siteIndexingService.resumeIndexing();
+        }catch (Exception e){
+            response = new ErrorResponse();
+            ((ErrorResponse)response).setError("Ошибка возобновления индексации сайтов");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        boolean isSuccess = response instanceof SuccessResponse;
+        return new ResponseEntity<>(response, isSuccess ? HttpStatus.OK : HttpStatus.BAD_REQUEST);
+    }
+
+    @GetMapping("/metrics")
+    public ResponseEntity<CommonResponse> metrics() {
+        MetricsResponse response;
+
+        try{
+            response = metricsService.getMetrics();
+        }catch (Exception e){
+            ErrorResponse errorResponse = new ErrorResponse();
+            errorResponse.setError("Ошибка получения метрик");
+            return new ResponseEntity<>(errorResponse, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping(value = "/indexPage"
             ,consumes = {MediaType.APPLICATION_FORM_URLENCODED_VALUE})
     public ResponseEntity<CommonResponse> indexPage(IndexPageRequest request) {
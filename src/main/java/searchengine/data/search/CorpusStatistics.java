@@ -0,0 +1,23 @@
+package searchengine.data.search;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Статистика BM25 по всем сайтам поиска вместе: число страниц, средняя длина страницы
+ * и число страниц с каждой леммой запроса. С ней оценки страниц разных сайтов
+ * считаются в одной шкале и сравниваются в общем отборе лучших страниц.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CorpusStatistics {
+    private final int pageCount;
+    private final double averagePageLength;
+    private final Map<String, Integer> documentFrequencies;
+
+    public int getDocumentFrequency(String lemma) {
+        return documentFrequencies.getOrDefault(lemma, 0);
+    }
+}
@@ -0,0 +1,16 @@
+package searchengine.data.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndexRow {
+    private int siteId;
+    private int pageId;
+    private String lemma;
+    private float rating;
+    private byte[] positions;
+}
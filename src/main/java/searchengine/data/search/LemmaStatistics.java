@@ -0,0 +1,25 @@
+package searchengine.data.search;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Число страниц с леммой на каждом сайте по обратному индексу на момент разбора запроса.
+ * Используется для выбора леммы слова, порядка лемм по редкости и отбора сайтов поиска.
+ */
+@Getter
+@RequiredArgsConstructor
+public class LemmaStatistics {
+    private final String lemma;
+    private final Map<Integer, Integer> siteFrequencies;
+
+    public int getDocumentFrequency() {
+        return siteFrequencies.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    public int getSiteFrequency(int siteId) {
+        return siteFrequencies.getOrDefault(siteId, 0);
+    }
+}
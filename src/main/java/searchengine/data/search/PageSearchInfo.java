@@ -0,0 +1,22 @@
+package searchengine.data.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Поля страницы, нужные для результата поиска: без html-кода страницы.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageSearchInfo {
+    private int id;
+    private int siteId;
+    private String siteUrl;
+    private String siteName;
+    private String path;
+    private String title;
+    private String description;
+    private String text;
+}
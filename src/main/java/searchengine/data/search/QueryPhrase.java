@@ -0,0 +1,17 @@
+package searchengine.data.search;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Фраза запроса в кавычках: леммы слов и их номера внутри фразы.
+ * Служебные слова лемм не имеют, но номера следующих слов учитывают их.
+ */
+@Getter
+@RequiredArgsConstructor
+public class QueryPhrase {
+    private final List<String> lemmas;
+    private final int[] positions;
+}
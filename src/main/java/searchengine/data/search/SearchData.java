@@ -1,5 +1,6 @@
 package searchengine.data.search;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
 @Data
@@ -10,4 +11,7 @@ public class SearchData {
     private String title;
     private String snippet;
     private double relevance;
+    // вместо сниппета выдано описание страницы: такой ответ не кэшируется
+    @JsonIgnore
+    private boolean snippetFallback;
 }
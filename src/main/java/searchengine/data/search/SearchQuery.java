@@ -0,0 +1,19 @@
+package searchengine.data.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchQuery {
+    // от самой редкой леммы к самой частой
+    private Set<String> lemmas;
+    private List<QueryPhrase> phrases;
+    private Map<String, LemmaStatistics> lemmaStatistics;
+}
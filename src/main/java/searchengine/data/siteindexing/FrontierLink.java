@@ -0,0 +1,16 @@
+package searchengine.data.siteindexing;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public class FrontierLink {
+    private final String link;
+    private final int depth;
+    private final double priority;
+
+    public FrontierLink(String link, int depth) {
+        this(link, depth, 0);
+    }
+}
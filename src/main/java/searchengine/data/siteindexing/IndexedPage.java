@@ -0,0 +1,12 @@
+package searchengine.data.siteindexing;
+
+import lombok.Data;
+import searchengine.model.PageEntity;
+import searchengine.utils.postings.PagePostings;
+
+@Data
+public class IndexedPage {
+    private PageEntity page;
+    private PagePostings postings;
+    private Integer replacedPageId;
+}
@@ -0,0 +1,7 @@
+package searchengine.data.siteindexing;
+
+public enum IndexingMode {
+    FULL
+    ,INCREMENTAL
+    ,RESUME
+}
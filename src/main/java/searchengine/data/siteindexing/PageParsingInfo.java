@@ -9,4 +9,10 @@ public class PageParsingInfo {
     private Set<String> subLinks;
     private int status;
     private String content;
+    private String text;
+    private String title;
+    private String description;
+    private String etag;
+    private String lastModified;
+    private String contentHash;
 }
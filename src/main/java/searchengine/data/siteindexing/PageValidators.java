@@ -0,0 +1,16 @@
+package searchengine.data.siteindexing;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageValidators {
+    private int id;
+    private String path;
+    private String etag;
+    private String lastModified;
+    private String contentHash;
+}
@@ -0,0 +1,14 @@
+package searchengine.data.siteindexing;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+
+@Getter
+@RequiredArgsConstructor
+public class SitemapEntry {
+    private final String link;
+    private final Instant lastModified;
+    private final double priority;
+}
@@ -0,0 +1,13 @@
+package searchengine.data.statistics;
+
+import lombok.Data;
+
+@Data
+public class CacheMetrics {
+    private String name;
+    private int size;
+    private int maxSize;
+    private long hitCount;
+    private long missCount;
+    private double hitRate;
+}
@@ -0,0 +1,15 @@
+package searchengine.data.statistics;
+
+import lombok.Data;
+
+@Data
+public class IndexingStageMetrics {
+    private String name;
+    private int threadCount;
+    private int queueSize;
+    private Integer queueCapacity;
+    private long processedCount;
+    private double throughput;
+    private double averageProcessingTime;
+    private double utilization;
+}
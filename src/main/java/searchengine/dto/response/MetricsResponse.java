@@ -0,0 +1,14 @@
+package searchengine.dto.response;
+
+import lombok.Data;
+import searchengine.data.statistics.CacheMetrics;
+import searchengine.data.statistics.IndexingStageMetrics;
+
+import java.util.List;
+
+@Data
+public class MetricsResponse implements CommonResponse {
+    private boolean result;
+    private List<IndexingStageMetrics> indexingStages;
+    private List<CacheMetrics> caches;
+}
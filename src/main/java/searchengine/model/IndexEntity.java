@@ -32,4 +32,9 @@ public class IndexEntity {
 
     @Column(nullable = false)
     private float rating;
+
+    // вхождения леммы на странице в формате PositionList.encode()
+    @Lob
+    @Column(columnDefinition = "MEDIUMBLOB")
+    private byte[] positions;
 }
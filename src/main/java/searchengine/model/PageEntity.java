@@ -32,4 +32,26 @@ public class PageEntity {
 
     @Column(nullable = false, columnDefinition = "MEDIUMTEXT")
     private String content;
+
+    @Column(columnDefinition = "MEDIUMTEXT")
+    private String text;
+
+    @Column(columnDefinition = "TEXT")
+    private String title;
+
+    @Column(columnDefinition = "TEXT")
+    private String description;
+
+    @Column(columnDefinition = "VARCHAR(255)")
+    private String etag;
+
+    @Column(name = "last_modified", columnDefinition = "VARCHAR(255)")
+    private String lastModified;
+
+    @Column(name = "content_hash", columnDefinition = "CHAR(64)")
+    private String contentHash;
+
+    // ссылки страницы через перевод строки: для ответа 304 их не нужно заново извлекать из HTML
+    @Column(name = "sub_links", columnDefinition = "MEDIUMTEXT")
+    private String subLinks;
 }
@@ -8,9 +8,8 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import searchengine.model.IndexEntity;
-import searchengine.model.LemmaEntity;
 import searchengine.model.PageEntity;
-import searchengine.data.search.PageRank;
+import searchengine.data.search.IndexRow;
 
 import java.util.List;
 
@@ -25,30 +24,20 @@ public interface IndexRepository extends JpaRepository<IndexEntity, Integer>, In
     @Modifying
     int deleteAllIndices();
 
-    @Query("""
-            SELECT i.page.id
-            FROM IndexEntity i
-            WHERE i.lemma = :lemma
-            AND (i.page.id IN (:pagesId) or 1 = :newPages)
-            """)
-    List<Integer> findPageIdByLemmaAndPages(@Param("lemma") LemmaEntity lemma
-            ,@Param("pagesId") List<Integer> pagesId, @Param("newPages") int newPages);
-
-    @Query("""
-            SELECT new searchengine.data.search.PageRank(i.page,SUM(i.rating))
-            FROM IndexEntity i
-            WHERE i.lemma IN (:lemmas)
-            AND i.page.id IN (:pagesId)
-            GROUP BY i.page
-            ORDER BY SUM(i.rating) DESC
-            """)
-    List<PageRank> findPagesWithSumRankByLemmasAndPagesId(@Param("lemmas") List<LemmaEntity> lemmas
-            , @Param("pagesId") List<Integer> pagesId);
-
     @Query("""
             SELECT i.lemma.id
             FROM IndexEntity i
             WHERE i.page.id = :pageId
     """)
     List<Integer> findLemmasIdByPage(@Param("pageId") int pageId);
+
+    @Query("""
+            SELECT new searchengine.data.search.IndexRow(i.page.site.id, i.page.id, i.lemma.lemma, i.rating
+            , i.positions)
+            FROM IndexEntity i
+            WHERE i.page.id > :fromPageId AND i.page.id <= :toPageId
+            ORDER BY i.page.id
+            """)
+    List<IndexRow> findIndexRowsByPageIdRange(@Param("fromPageId") int fromPageId
+            , @Param("toPageId") int toPageId);
 }
@@ -2,10 +2,9 @@ package searchengine.repositories;
 
 import org.springframework.transaction.annotation.Transactional;
 import searchengine.model.PageEntity;
-
-import java.util.Map;
+import searchengine.utils.postings.PagePostings;
 
 public interface IndexRepositoryCustom {
     @Transactional
-    void saveIndices(Map<String, Integer> lemmas, PageEntity page);
+    void saveIndices(PagePostings postings, PageEntity page);
 }
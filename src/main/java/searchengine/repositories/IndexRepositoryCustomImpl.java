@@ -1,35 +1,35 @@
 package searchengine.repositories;
 
 import searchengine.model.PageEntity;
+import searchengine.utils.postings.PagePostings;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
-import java.util.Map;
+import java.util.HexFormat;
 
 public class IndexRepositoryCustomImpl implements IndexRepositoryCustom{
     @PersistenceContext
     private EntityManager entityManager;
 
     @Override
-    public void saveIndices(Map<String, Integer> lemmas, PageEntity page) {
+    public void saveIndices(PagePostings postings, PageEntity page) {
         String indexSQL = """
-                INSERT INTO search_index(rating, lemma_id, page_id)
-                SELECT t.rating, l.id, t.page_id
+                INSERT INTO search_index(rating, positions, lemma_id, page_id)
+                SELECT t.rating, t.positions, l.id, t.page_id
                 FROM (
                 <query>
                 ) t
                 JOIN lemma l ON l.site_id = t.site_id and l.lemma = t.lemma
                 """;
-        String indexSelectTemplate = "select '<lemma>' lemma, " + page.getId() + " page_id, "
-                + page.getSite().getId() + " site_id, <rating> rating";
-        StringBuilder indexSelect = new StringBuilder();
+        String pageColumns = "' lemma, " + page.getId() + " page_id, " + page.getSite().getId() + " site_id, ";
+        HexFormat hexFormat = HexFormat.of();
+        StringBuilder indexSelect = new StringBuilder(postings.getFrequencies().size() * 96);
 
-        lemmas.entrySet().forEach(l -> {
-            indexSelect.append(indexSelect.isEmpty() ? "" : " union\n")
-                    .append(indexSelectTemplate.replace("<lemma>", l.getKey())
-                            .replace("<rating>", l.getValue().toString()));
-        });
+        postings.getFrequencies().forEach((lemma, rating) -> indexSelect
+                .append(indexSelect.isEmpty() ? "" : " union\n")
+                .append("select '").append(lemma).append(pageColumns).append(rating).append(" rating, x'")
+                .append(hexFormat.formatHex(postings.getPositionList(lemma).encode())).append("' positions"));
 
         String queryString = indexSQL.replace("<query>", indexSelect);
         Query query = entityManager.createNativeQuery(queryString);
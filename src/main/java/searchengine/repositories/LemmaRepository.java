@@ -10,20 +10,12 @@ import searchengine.model.LemmaEntity;
 import searchengine.model.SiteEntity;
 
 import java.util.List;
-import java.util.Set;
 
 @Repository
 @Transactional
 public interface LemmaRepository extends JpaRepository<LemmaEntity, Integer>, LemmaRepositoryCustom {
     int countBySite(SiteEntity site);
 
-    @Query("SELECT l FROM LemmaEntity l WHERE l.lemma IN (:lemmas) AND l.site IN (:sites) ORDER BY l.site, l.frequency")
-    List<LemmaEntity> findLemmaByLemmasAndSites(@Param("lemmas") Set<String> lemmas
-            , @Param("sites") List<SiteEntity> sites);
-
-    @Query("SELECT l.lemma FROM LemmaEntity l WHERE l.lemma IN (:lemmas) ORDER BY l.frequency DESC")
-    List<String>  findLemmaByLemmasOrderByFrequency(@Param("lemmas") Set<String> lemmas);
-
     @Query(value = "DELETE LemmaEntity l")
     @Modifying
     int deleteAllLemmas();
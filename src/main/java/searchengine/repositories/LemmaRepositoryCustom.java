@@ -2,16 +2,9 @@ package searchengine.repositories;
 
 import org.springframework.transaction.annotation.Transactional;
 import searchengine.model.SiteEntity;
-
-import java.util.List;
-import java.util.Set;
+import searchengine.utils.TermFrequencyMap;
 
 public interface LemmaRepositoryCustom {
     @Transactional
-    void saveLemmas(Set<String> lemmas, SiteEntity site);
-
-    @Transactional
-    void saveLemmasByProcedure(String queryText);
-
-    List<String> getSaveLemmasQueriesMasInsert(Set<String> lemmas, SiteEntity site);
+    void saveLemmas(TermFrequencyMap lemmaFrequencies, SiteEntity site);
 }
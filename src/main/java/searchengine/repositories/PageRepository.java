@@ -6,9 +6,12 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import searchengine.data.search.PageSearchInfo;
+import searchengine.data.siteindexing.PageValidators;
 import searchengine.model.PageEntity;
 import searchengine.model.SiteEntity;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -16,11 +19,33 @@ import java.util.List;
 public interface PageRepository  extends JpaRepository<PageEntity, Integer> {
     PageEntity findByPathAndSite(String path, SiteEntity site);
 
-    @Query("SELECT p FROM PageEntity p WHERE p.path IN (:links)")
-    List<PageEntity> findPagesByPathList(@Param("links") List<String> links);
-
     int countBySite(SiteEntity site);
 
+    @Query("""
+            SELECT new searchengine.data.siteindexing.PageValidators(p.id, p.path, p.etag, p.lastModified
+            , p.contentHash)
+            FROM PageEntity p
+            WHERE p.site = :site
+            """)
+    List<PageValidators> findValidatorsBySite(@Param("site") SiteEntity site);
+
+    @Query("""
+            SELECT new searchengine.data.search.PageSearchInfo(p.id, p.site.id, p.site.url, p.site.name, p.path
+            , p.title, p.description, p.text)
+            FROM PageEntity p
+            WHERE p.id IN (:pagesId)
+            """)
+    List<PageSearchInfo> findSearchInfoByIds(@Param("pagesId") Collection<Integer> pagesId);
+
+    @Query("SELECT p.subLinks FROM PageEntity p WHERE p.id = :id")
+    String findSubLinksById(@Param("id") int id);
+
+    @Query("SELECT p.content FROM PageEntity p WHERE p.id = :id")
+    String findContentById(@Param("id") int id);
+
+    @Query("SELECT COALESCE(MAX(p.id), 0) FROM PageEntity p")
+    int findMaxId();
+
     @Query(value = "DELETE PageEntity p")
     @Modifying
     int deleteAllPages();
@@ -0,0 +1,37 @@
+package searchengine.services;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import searchengine.repositories.IndexRepository;
+import searchengine.repositories.PageRepository;
+import searchengine.utils.search.InvertedIndex;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Загружает обратный индекс из search_index при старте, до приема запросов.
+ * Строки читаются диапазонами id страниц, чтобы не держать в памяти всю таблицу сразу.
+ */
+@Component
+@RequiredArgsConstructor
+public class InvertedIndexLoader {
+    Logger logger = LoggerFactory.getLogger(InvertedIndexLoader.class);
+    private final IndexRepository indexRepository;
+    private final PageRepository pageRepository;
+    private final InvertedIndex invertedIndex;
+    private final int LOAD_PAGE_RANGE = 1000;
+
+    @PostConstruct
+    public void load() {
+        long startTime = System.currentTimeMillis();
+        int maxPageId = pageRepository.findMaxId();
+        for (int fromPageId = 0; fromPageId < maxPageId; fromPageId += LOAD_PAGE_RANGE) {
+            invertedIndex.addIndices(indexRepository.findIndexRowsByPageIdRange(fromPageId
+                    , fromPageId + LOAD_PAGE_RANGE));
+        }
+        logger.info("Inverted index loaded: " + invertedIndex.getPageCount() + " pages in "
+                + (System.currentTimeMillis() - startTime) + " ms");
+    }
+}
@@ -0,0 +1,25 @@
+package searchengine.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import searchengine.dto.response.MetricsResponse;
+import searchengine.utils.LemmaParser;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class MetricsServiceImpl implements MetricsService {
+    private final SiteIndexingService siteIndexingService;
+    private final LemmaParser lemmaParser;
+    private final SearchService searchService;
+
+    @Override
+    public MetricsResponse getMetrics() {
+        MetricsResponse response = new MetricsResponse();
+        response.setIndexingStages(siteIndexingService.getIndexingMetrics());
+        response.setCaches(List.of(lemmaParser.getWordCacheMetrics(), searchService.getCacheMetrics()));
+        response.setResult(true);
+        return response;
+    }
+}
@@ -0,0 +1,100 @@
+package searchengine.services;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import searchengine.data.siteindexing.IndexedPage;
+import searchengine.model.PageEntity;
+import searchengine.model.SiteEntity;
+import searchengine.repositories.IndexRepository;
+import searchengine.repositories.LemmaRepository;
+import searchengine.repositories.PageRepository;
+import searchengine.utils.TermFrequencyMap;
+import searchengine.utils.search.InvertedIndex;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Записывает пачку проиндексированных страниц в одной транзакции:
+ * удаляет заменяемые страницы, сохраняет новые, одним запросом на сайт
+ * увеличивает частоты лемм и добавляет индексы.
+ * Обратный индекс в памяти меняется только после фиксации транзакции.
+ */
+@Component
+@RequiredArgsConstructor
+public class PageBatchWriter {
+    private final PageRepository pageRepository;
+    private final LemmaRepository lemmaRepository;
+    private final IndexRepository indexRepository;
+    private final InvertedIndex invertedIndex;
+
+    @Transactional
+    public void write(List<IndexedPage> indexedPages) {
+        indexedPages.stream()
+                .map(IndexedPage::getReplacedPageId)
+                .filter(Objects::nonNull)
+                .forEach(this::removePage);
+
+        // после отката предыдущей попытки у страниц остаются выданные базой id
+        indexedPages.forEach(p -> p.getPage().setId(0));
+        pageRepository.saveAll(indexedPages.stream().map(IndexedPage::getPage).toList());
+
+        saveLemmaFrequencies(indexedPages);
+
+        indexedPages.stream()
+                .filter(p -> !p.getPostings().isEmpty())
+                .forEach(p -> indexRepository.saveIndices(p.getPostings(), p.getPage()));
+
+        afterCommit(() -> invertedIndex.addPages(indexedPages));
+    }
+
+    @Transactional
+    public void removePage(int pageId) {
+        PageEntity page = pageRepository.findById(pageId).orElse(null);
+        if (page == null) {
+            return;
+        }
+
+        List<Integer> lemmasId = indexRepository.findLemmasIdByPage(page.getId());
+        if (!lemmasId.isEmpty()) {
+            lemmaRepository.decreaseFrequencyById(lemmasId);
+            lemmaRepository.deleteZeroLemmas(lemmasId);
+        }
+        indexRepository.deleteByPage(page);
+        pageRepository.delete(page);
+
+        afterCommit(() -> invertedIndex.removePage(pageId));
+    }
+
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void saveLemmaFrequencies(List<IndexedPage> indexedPages) {
+        Map<Integer, SiteEntity> sites = new HashMap<>();
+        Map<Integer, TermFrequencyMap> siteLemmaFrequencies = new HashMap<>();
+        indexedPages.forEach(p -> {
+            SiteEntity site = p.getPage().getSite();
+            sites.putIfAbsent(site.getId(), site);
+            TermFrequencyMap lemmaFrequencies = siteLemmaFrequencies
+                    .computeIfAbsent(site.getId(), id -> new TermFrequencyMap());
+            p.getPostings().getFrequencies().forEach((lemma, count) -> lemmaFrequencies.increment(lemma));
+        });
+
+        siteLemmaFrequencies.forEach((siteId, lemmaFrequencies) -> {
+            if (!lemmaFrequencies.isEmpty()) {
+                lemmaRepository.saveLemmas(lemmaFrequencies, sites.get(siteId));
+            }
+        });
+    }
+}
@@ -1,5 +1,6 @@
 package searchengine.services;
 
+import searchengine.data.statistics.CacheMetrics;
 import searchengine.dto.request.SearchRequest;
 import searchengine.dto.response.CommonResponse;
 
@@ -7,4 +8,6 @@ import java.io.IOException;
 
 public interface SearchService {
     CommonResponse search(SearchRequest request) throws IOException;
+
+    CacheMetrics getCacheMetrics();
 }
@@ -6,24 +6,43 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import searchengine.config.SearchResultSettings;
+import searchengine.data.search.CorpusStatistics;
+import searchengine.data.search.LemmaStatistics;
 import searchengine.data.search.PageRank;
+import searchengine.data.search.PageSearchInfo;
+import searchengine.data.search.QueryPhrase;
+import searchengine.data.search.SearchQuery;
+import searchengine.data.statistics.CacheMetrics;
 import searchengine.dto.request.SearchRequest;
 import searchengine.dto.response.CommonResponse;
 import searchengine.dto.response.ErrorResponse;
 import searchengine.data.search.SearchData;
 import searchengine.dto.response.SearchResponse;
-import searchengine.model.LemmaEntity;
-import searchengine.model.PageEntity;
 import searchengine.model.SiteEntity;
-import searchengine.repositories.IndexRepository;
-import searchengine.repositories.LemmaRepository;
+import searchengine.repositories.PageRepository;
 import searchengine.repositories.SiteRepository;
 import searchengine.utils.LemmaParser;
-import searchengine.utils.WebPageParser;
 import searchengine.utils.SnippetCreator;
-
+import searchengine.utils.cache.LruCache;
+import searchengine.utils.postings.PositionList;
+import searchengine.utils.search.Bm25Scorer;
+import searchengine.utils.search.InvertedIndex;
+import searchengine.utils.search.PositionMatcher;
+import searchengine.utils.search.PostingIntersection;
+import searchengine.utils.search.PostingList;
+import searchengine.utils.search.TopPagesCollector;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,9 +51,35 @@ public class SearchServiceImpl implements SearchService {
     Logger logger = LoggerFactory.getLogger(SearchServiceImpl.class);
 
     private final SiteRepository siteRepository;
-    private final LemmaRepository lemmaRepository;
-    private final IndexRepository indexRepository;
+    private final PageRepository pageRepository;
     private final SearchResultSettings searchResultSettings;
+    private final LemmaParser lemmaParser;
+    private final InvertedIndex invertedIndex;
+    // ключ включает поколение индекса, поэтому после записи страниц старые результаты не находятся
+    private LruCache<String, SearchResponse> resultCache;
+    // сниппеты страниц выдачи строятся параллельно, их ожидание ограничено одним сроком на запрос
+    private ThreadPoolExecutor snippetExecutor;
+
+    @PostConstruct
+    public void init() {
+        resultCache = new LruCache<>(searchResultSettings.getResultCacheSize()
+                , searchResultSettings.getResultCacheTtl());
+        int threadCount = Math.max(1, searchResultSettings.getSnippetThreadCount());
+        // при переполненной очереди задача отменяется и получает описание страницы вместо сниппета
+        snippetExecutor = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS
+                , new ArrayBlockingQueue<>(Math.max(1, searchResultSettings.getSnippetQueueSize()))
+                , (task, executor) -> ((SnippetTask) task).cancel(false));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snippetExecutor.shutdown();
+    }
+
+    @Override
+    public CacheMetrics getCacheMetrics() {
+        return resultCache.getMetrics("search-results");
+    }
 
     @Override
     public CommonResponse search(SearchRequest request) throws IOException {
@@ -46,190 +91,303 @@ public class SearchServiceImpl implements SearchService {
             return errorResponse;
         }
 
-        Map<String,Set<String>> mapLemmas = LemmaParser.getInstance()
-                .getLemmaSet(request.getQuery());
-        Set<String> lemmas = getLemmaSetByMap(mapLemmas);
-
-        Tuple2<Integer,List<SearchData>> searchDataInfo = getSearchResult(lemmas, request, sitesList);
-        List<SearchData> searchData = searchDataInfo._2;
-        int countResults = searchDataInfo._1;
+        String query = request.getQuery().replace('«', '"').replace('»', '"');
+        Map<String,Set<String>> wordForms = lemmaParser.getLemmaSet(query);
+        Map<String, LemmaStatistics> lemmaStatistics = invertedIndex.getLemmaStatistics(wordForms.values().stream()
+                .flatMap(Set::stream).collect(Collectors.toSet()));
+        Map<String,String> wordLemmas = getWordLemmas(wordForms, lemmaStatistics);
+        SearchQuery searchQuery = new SearchQuery(getLemmasByRarity(wordLemmas.values(), lemmaStatistics)
+                , getQueryPhrases(query, wordLemmas), lemmaStatistics);
+        String cacheKey = getCacheKey(searchQuery, request, sitesList);
+        SearchResponse cachedResponse = resultCache.get(cacheKey);
+        if (cachedResponse != null) {
+            return cachedResponse;
+        }
 
+        Tuple2<Integer,List<SearchData>> searchDataInfo = getSearchResult(searchQuery, request, sitesList);
         SearchResponse response = new SearchResponse();
         response.setResult(true);
-        response.setCount(countResults);
-        response.setData(searchData);
+        response.setCount(searchDataInfo._1);
+        response.setData(searchDataInfo._2);
+        if (searchDataInfo._2.stream().noneMatch(SearchData::isSnippetFallback)) {
+            resultCache.put(cacheKey, response);
+        }
         return response;
     }
 
-    private Set<String> getLemmaSetByMap(Map<String, Set<String>> mapLemmas) {
-        Set<String> lemmaSet = new HashSet<>();
+    /**
+     * Поколение индекса, отсортированные леммы, фразы, сайты поиска и окно offset/limit.
+     */
+    private String getCacheKey(SearchQuery searchQuery, SearchRequest request, List<SiteEntity> sitesList) {
+        StringBuilder cacheKey = new StringBuilder().append(invertedIndex.getGeneration());
+        new TreeSet<>(searchQuery.getLemmas()).forEach(lemma -> cacheKey.append('|').append(lemma));
+        searchQuery.getPhrases().forEach(phrase -> cacheKey.append("|\"").append(String.join(" ", phrase.getLemmas()))
+                .append(Arrays.toString(phrase.getPositions())));
+        sitesList.forEach(site -> cacheKey.append("|site:").append(site.getId()));
+        return cacheKey.append("|").append(request.getOffset()).append(':').append(request.getLimit()).toString();
+    }
+
+    /**
+     * Лемма каждого слова запроса; из нескольких лемм слова выбирается самая частая в индексе.
+     */
+    private Map<String, String> getWordLemmas(Map<String, Set<String>> mapLemmas
+            , Map<String, LemmaStatistics> lemmaStatistics) {
+        Map<String, String> lemmaByWord = new LinkedHashMap<>();
         for (Map.Entry<String, Set<String>> wordLemmas : mapLemmas.entrySet()) {
             Set<String> tempSet = wordLemmas.getValue();
             String lemma;
 
             if (tempSet.size() > 1) {
-                List<String> lemmas= lemmaRepository.findLemmaByLemmasOrderByFrequency(tempSet);
-                lemma = lemmas.isEmpty() ? tempSet.iterator().next() : lemmas.get(0);
+                lemma = tempSet.stream().max(Comparator.comparingInt(l -> lemmaStatistics.get(l)
+                        .getDocumentFrequency())).orElseThrow();
             } else {
                 lemma = tempSet.iterator().next();
             }
 
-            lemmaSet.add(lemma);
+            lemmaByWord.put(wordLemmas.getKey(), lemma);
         }
-        return lemmaSet;
+        return lemmaByWord;
     }
 
+    private Set<String> getLemmasByRarity(Collection<String> lemmas, Map<String, LemmaStatistics> lemmaStatistics) {
+        return lemmas.stream().distinct()
+                .sorted(Comparator.comparingInt(lemma -> lemmaStatistics.get(lemma).getDocumentFrequency()))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
 
-    private Tuple2<Integer,List<SearchData>>  getSearchResult(Set<String> searchLemmas, SearchRequest request
-            , List<SiteEntity> sitesList) {
-        List<LemmaEntity> lemmas = lemmaRepository.findLemmaByLemmasAndSites(searchLemmas, sitesList);
+    /**
+     * Фразы запроса в кавычках; незакрытая кавычка и фразы из одного слова не учитываются.
+     */
+    private List<QueryPhrase> getQueryPhrases(String query, Map<String, String> wordLemmas) {
+        List<QueryPhrase> phrases = new ArrayList<>();
+        String[] queryParts = query.split("\"", -1);
+        for (int i = 1; i < queryParts.length - 1; i += 2) {
+            List<String> words = lemmaParser.getWords(queryParts[i]);
+            List<String> phraseLemmas = new ArrayList<>();
+            List<Integer> positions = new ArrayList<>();
+            for (int position = 0; position < words.size(); position++) {
+                String lemma = wordLemmas.get(words.get(position));
+                if (lemma != null) {
+                    phraseLemmas.add(lemma);
+                    positions.add(position);
+                }
+            }
 
-        deleteNotFullLemmasSites(sitesList, lemmas, searchLemmas.size());
+            if (phraseLemmas.size() > 1) {
+                phrases.add(new QueryPhrase(phraseLemmas, positions.stream().mapToInt(Integer::intValue).toArray()));
+            }
+        }
+        return phrases;
+    }
 
-        if(lemmas.isEmpty()) {
+
+    private Tuple2<Integer,List<SearchData>>  getSearchResult(SearchQuery searchQuery, SearchRequest request
+            , List<SiteEntity> sitesList) {
+        List<SiteEntity> searchSites = getSitesWithAllLemmas(searchQuery, sitesList);
+        if (searchSites.isEmpty()) {
             return new Tuple2<>(0, new ArrayList<>());
         }
-        lemmas.forEach(l -> logger.info(l.getLemma() + ":" + l.getFrequency()+":"+l.getSite().getUrl()));
 
-        Map<SiteEntity, List<Integer>> pagesBySite = getPagesBySiteMap(lemmas);
-        if (pagesBySite.isEmpty()) {
+        TopPagesCollector topPages = invertedIndex.read(() -> rankPages(searchQuery, sitesList
+                , new TopPagesCollector(request.getOffset() + request.getLimit())));
+        if (topPages.size() == 0) {
             return new Tuple2<>(0, new ArrayList<>());
         }
 
-        List<Integer> pagesId = pagesBySite.values()
-                .stream()
-                .flatMap(Collection::stream)
-                .collect(Collectors.toList());
-        List<PageRank> pagesWithRank = indexRepository
-                .findPagesWithSumRankByLemmasAndPagesId(lemmas, pagesId);
-        pagesWithRank.forEach(pr -> logger.info(pr.getPage().getPath() + ":" + pr.getRank()));
-
-        double maxRank = pagesWithRank.get(0).getRank();
-        pagesWithRank.forEach(pr -> pr.setRank(pr.getRank() / maxRank));
-        pagesWithRank.forEach(pr -> logger.info(pr.getPage().getPath() + ":" + pr.getRank()));
-        int countPages = pagesWithRank.size();
-
-        return new Tuple2<>(countPages
-                , createSearchDataList(getPagesSubListByLimits(pagesWithRank, request), lemmas));
-    }
-
-    private void deleteNotFullLemmasSites(List<SiteEntity> sitesList, List<LemmaEntity> lemmas, int searchLemmasCount) {
-        if(lemmas.isEmpty()) {
-            return;
+        topPages.sort();
+        double maxRank = topPages.getScore(0);
+        List<PageRank> visiblePages = new ArrayList<>();
+        for (int i = request.getOffset(); i < topPages.size(); i++) {
+            visiblePages.add(new PageRank(topPages.getPageId(i), maxRank > 0 ? topPages.getScore(i) / maxRank : 0));
         }
+        visiblePages.forEach(pr -> logger.info(pr.getPageId() + ":" + pr.getRank()));
 
-        for (SiteEntity siteEntity : sitesList) {
-            Set<LemmaEntity> lemmasBySite = lemmas.stream().filter(l -> l.getSite().getId() == siteEntity.getId())
-                    .collect(Collectors.toSet());
-            if (lemmasBySite.size() < searchLemmasCount) {
-                lemmas.removeIf(l -> lemmasBySite.contains(l));
-            }
-        }
+        return new Tuple2<>(topPages.getTotalCount(), createSearchDataList(visiblePages, searchQuery.getLemmas()));
     }
 
-    private Map<SiteEntity, List<Integer>> getPagesBySiteMap(List<LemmaEntity> lemmas) {
-        Map<SiteEntity, List<Integer>> pagesBySite = new LinkedHashMap<>();
-        List<Integer> newPagesId = new ArrayList<>();
-        newPagesId.add(0);
-        int stopCheckedSiteId = 0;
-        int countLemmasBySite = 0;
-        for (LemmaEntity lemma : lemmas) {
-            SiteEntity site = lemma.getSite();
-            if (stopCheckedSiteId == site.getId()) {
-                continue;
-            }
-
-            boolean isSiteExistInMap = pagesBySite.containsKey(site);
-            List<Integer> pagesId = isSiteExistInMap? pagesBySite.get(site) : newPagesId;
-            int searchNewPages = isSiteExistInMap? 0 : 1;
-            countLemmasBySite = isSiteExistInMap? ++countLemmasBySite : 1;
-
-            pagesId = findPagesId(new PagesIdProperty(pagesId, pagesBySite, site), lemma, searchNewPages);
+    /**
+     * Сайты, на которых по статистике лемм запроса встречаются все леммы.
+     */
+    private List<SiteEntity> getSitesWithAllLemmas(SearchQuery searchQuery, List<SiteEntity> sitesList) {
+        Map<String, LemmaStatistics> lemmaStatistics = searchQuery.getLemmaStatistics();
+        return sitesList.stream().filter(site -> searchQuery.getLemmas().stream()
+                        .allMatch(lemma -> lemmaStatistics.get(lemma).getSiteFrequency(site.getId()) > 0))
+                .toList();
+    }
 
-            if (pagesId.isEmpty()) {
-                stopCheckedSiteId = site.getId();
+    /**
+     * Ранжирует страницы по обратному индексу в памяти (BM25 с учетом близости слов)
+     * и оставляет в topPages лучшие offset + limit. Статистика BM25 общая для всех сайтов поиска,
+     * чтобы оценки страниц разных сайтов были в одной шкале. Сайты, на которых нет хотя бы
+     * одной леммы запроса, пропускаются: индекс мог измениться после сбора статистики.
+     * Позиции разбираются только для проверки фраз и для страниц, которые с наибольшим
+     * множителем близости еще могут попасть в отбор. Выполняется под блокировкой чтения индекса.
+     */
+    private TopPagesCollector rankPages(SearchQuery searchQuery, List<SiteEntity> sitesList
+            , TopPagesCollector topPages) {
+        // множитель близости не больше 1 + proximityBoost, и только для запроса из нескольких лемм
+        double maxPositionFactor = searchQuery.getLemmas().size() < 2 ? 1
+                : Math.max(1, 1 + searchResultSettings.getProximityBoost());
+        CorpusStatistics corpusStatistics = invertedIndex.getCorpusStatistics(sitesList.stream()
+                .map(SiteEntity::getId).toList(), searchQuery.getLemmas());
+        for (SiteEntity site : sitesList) {
+            List<PostingList> postingLists = getSitePostingLists(searchQuery, site.getId());
+            if (postingLists.isEmpty()) {
                 continue;
             }
-
-            if (isEnoughPages(new PagesIdProperty(pagesId, pagesBySite, site), countLemmasBySite, lemma)) {
-                stopCheckedSiteId = site.getId();
-                continue;
+            Bm25Scorer scorer = new Bm25Scorer(postingLists, searchResultSettings.getBm25K1()
+                    , searchResultSettings.getBm25B(), corpusStatistics);
+            for (int pageId : PostingIntersection.intersect(postingLists)) {
+                double score = scorer.score(pageId, invertedIndex.getPageLength(pageId));
+                boolean isProximityNeeded = maxPositionFactor > 1
+                        && topPages.canAccept(pageId, score * maxPositionFactor);
+                if (!isProximityNeeded && searchQuery.getPhrases().isEmpty()) {
+                    topPages.offer(pageId, score);
+                    continue;
+                }
+
+                Map<String, int[]> positions = getPagePositions(postingLists, pageId);
+                if (searchQuery.getPhrases().stream().allMatch(phrase -> isPhraseOnPage(phrase, positions))) {
+                    topPages.offer(pageId, isProximityNeeded ? score * getProximityFactor(positions) : score);
+                }
             }
-
-            pagesBySite.put(site, pagesId);
-            logger.info(lemma.getLemma() + ":" + pagesId);
         }
-
-        return pagesBySite;
+        return topPages;
     }
 
-    private List<Integer> findPagesId(PagesIdProperty pagesIdProperty, LemmaEntity lemma, int searchNewPages) {
-        List<Integer> pagesId = indexRepository
-                .findPageIdByLemmaAndPages(lemma, pagesIdProperty.pagesId, searchNewPages);
-        if (pagesId.isEmpty()) {
-            pagesIdProperty.pagesBySite.remove(pagesIdProperty.site);
-            logger.info(pagesIdProperty.site.getUrl() + " is removed cause not found " + lemma.getLemma());
+    /**
+     * Списки страниц лемм запроса на сайте; пустой, если какой-то леммы на сайте нет.
+     */
+    private List<PostingList> getSitePostingLists(SearchQuery searchQuery, int siteId) {
+        List<PostingList> postingLists = new ArrayList<>();
+        for (String lemma : searchQuery.getLemmas()) {
+            PostingList postingList = invertedIndex.getPostingList(siteId, lemma);
+            if (postingList == null) {
+                return List.of();
+            }
+            postingLists.add(postingList);
         }
-        return pagesId;
+        return postingLists;
     }
 
-    private boolean isEnoughPages(PagesIdProperty pagesIdProperty, int countLemmasBySite, LemmaEntity lemma) {
-        boolean isSiteExistInMap = pagesIdProperty.pagesBySite.containsKey(pagesIdProperty.site);
-
-        int searchPageStartCountLimit = searchResultSettings.getSearchPageStartCountLimit();
-        boolean isTrimPageList = !isSiteExistInMap && pagesIdProperty.pagesId.size() > searchPageStartCountLimit;
-        while (isTrimPageList && pagesIdProperty.pagesId.size() > searchPageStartCountLimit) {
-            pagesIdProperty.pagesId.remove(pagesIdProperty.pagesId.size() - 1);
+    /**
+     * Номера слов каждой леммы запроса на странице; пустые для страниц, проиндексированных без позиций.
+     */
+    private Map<String, int[]> getPagePositions(List<PostingList> postingLists, int pageId) {
+        Map<String, int[]> positions = new HashMap<>();
+        for (PostingList postingList : postingLists) {
+            int index = postingList.indexOf(pageId);
+            byte[] pagePositions = index < 0 ? null : postingList.getPositions(index);
+            if (pagePositions == null) {
+                return Map.of();
+            }
+            positions.put(postingList.getLemma(), PositionList.decode(pagePositions).getPositions());
         }
+        return positions;
+    }
 
-        boolean isSameCountPages = isSiteExistInMap
-                && pagesIdProperty.pagesBySite.get(pagesIdProperty.site).size() == pagesIdProperty.pagesId.size();
-        boolean isManyPages = countLemmasBySite > searchResultSettings.getSearchLemmasCountForPageLimit()
-                && lemma.getFrequency() > searchResultSettings.getSearchPageCountLimit();
+    /**
+     * Страницы без позиций считаются содержащими фразу.
+     */
+    private boolean isPhraseOnPage(QueryPhrase phrase, Map<String, int[]> positions) {
+        if (positions.isEmpty()) {
+            return true;
+        }
 
-        return pagesIdProperty.pagesId.isEmpty() || isSameCountPages || isManyPages;
+        List<int[]> termPositions = new ArrayList<>();
+        for (String lemma : phrase.getLemmas()) {
+            int[] lemmaPositions = positions.get(lemma);
+            if (lemmaPositions == null) {
+                return false;
+            }
+            termPositions.add(lemmaPositions);
+        }
+        return PositionMatcher.containsPhrase(termPositions, phrase.getPositions());
     }
 
-    private List<PageRank> getPagesSubListByLimits(List<PageRank> pagesWithRank, SearchRequest request) {
-        return new ArrayList<>(pagesWithRank.stream()
-                .skip(request.getOffset())
-                .limit(request.getLimit())
-                .collect(Collectors.toList()));
+    /**
+     * 1 + proximityBoost * (число слов / длина окна), если все слова запроса
+     * встречаются в окне не длиннее proximityWindow слов.
+     */
+    private double getProximityFactor(Map<String, int[]> positions) {
+        if (positions.size() < 2) {
+            return 1;
+        }
+
+        int window = PositionMatcher.getMinWindow(new ArrayList<>(positions.values()));
+        return window > searchResultSettings.getProximityWindow() ? 1
+                : 1 + searchResultSettings.getProximityBoost() * positions.size() / window;
     }
 
-    private List<SearchData> createSearchDataList(List<PageRank> pagesWithRank, List<LemmaEntity> lemmas) {
+    /**
+     * Данные загружаются только для показываемых страниц и без html-кода;
+     * страницы, удаленные после ранжирования, пропускаются.
+     */
+    private List<SearchData> createSearchDataList(List<PageRank> pagesWithRank, Set<String> lemmas) {
         List<SearchData> searchDataList = new ArrayList<>();
+        if (pagesWithRank.isEmpty()) {
+            return searchDataList;
+        }
+
+        Map<Integer, PageSearchInfo> pages = pageRepository.findSearchInfoByIds(pagesWithRank.stream()
+                        .map(PageRank::getPageId).toList()).stream()
+                .collect(Collectors.toMap(PageSearchInfo::getId, page -> page));
 
-        pagesWithRank.forEach(pr -> {
-            PageEntity page = pr.getPage();
+        long snippetDeadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(searchResultSettings.getSnippetTimeout());
+        Map<Integer, SnippetTask> snippets = submitSnippetTasks(pages.values(), lemmas);
+
+        pagesWithRank.stream().filter(pr -> pages.containsKey(pr.getPageId())).forEach(pr -> {
+            PageSearchInfo page = pages.get(pr.getPageId());
             SearchData data = new SearchData();
             data.setRelevance(pr.getRank());
             data.setUri(page.getPath());
-            data.setTitle(WebPageParser.getTitleFromHTML(page.getContent()));
+            data.setTitle(page.getTitle());
+            String snippet = snippets.get(pr.getPageId()).getSnippet(snippetDeadline);
+            data.setSnippetFallback(snippet == null);
+            data.setSnippet(snippet != null ? snippet : page.getDescription() == null ? "" : page.getDescription());
 
-            String snippet = "";
-            try{
-                snippet = createSnippetForPage(page, lemmas);
-            } catch (Exception e) {
-            }
-            data.setSnippet(snippet);
-
-            data.setSite(page.getSite().getUrl());
-            data.setSiteName(page.getSite().getName());
+            data.setSite(page.getSiteUrl());
+            data.setSiteName(page.getSiteName());
             searchDataList.add(data);
         });
 
         return searchDataList;
     }
 
-    private String createSnippetForPage(PageEntity page, List<LemmaEntity> lemmas) throws IOException {
-        Set<String> lemmasSet = lemmas.stream().map(LemmaEntity::getLemma)
-                .collect(Collectors.toSet());
+    private Map<Integer, SnippetTask> submitSnippetTasks(Collection<PageSearchInfo> pages, Set<String> lemmas) {
+        Map<Integer, SnippetTask> snippets = new HashMap<>();
+        pages.forEach(page -> {
+            SnippetTask snippetTask = new SnippetTask(page, lemmas);
+            snippets.put(page.getId(), snippetTask);
+            snippetExecutor.execute(snippetTask);
+        });
+        return snippets;
+    }
 
-        String snippet = "";
-        String pageText = WebPageParser.getTextFromHTML(page.getContent());
+    private String createSnippetForPage(PageSearchInfo page, Set<String> lemmas) {
+        List<int[]> lemmaOffsets = getPageOffsets(page, lemmas);
+        SnippetCreator snippetCreator = new SnippetCreator(searchResultSettings, lemmaParser);
+        // страницы, проиндексированные до появления позиций, лемматизируются заново
+        return lemmaOffsets.isEmpty() ? snippetCreator.getSnippet(page.getText(), lemmas)
+                : snippetCreator.getSnippet(page.getText(), lemmaOffsets);
+    }
 
-        return new SnippetCreator(searchResultSettings).getSnippetWithParts(pageText, lemmasSet, snippet);
+    /**
+     * Смещения слов запроса на странице из обратного индекса.
+     */
+    private List<int[]> getPageOffsets(PageSearchInfo page, Set<String> lemmas) {
+        return invertedIndex.read(() -> {
+            List<int[]> lemmaOffsets = new ArrayList<>();
+            for (String lemma : lemmas) {
+                PostingList postingList = invertedIndex.getPostingList(page.getSiteId(), lemma);
+                int index = postingList == null ? -1 : postingList.indexOf(page.getId());
+                if (index >= 0 && postingList.getPositions(index) != null) {
+                    lemmaOffsets.add(PositionList.decode(postingList.getPositions(index)).getOffsets());
+                }
+            }
+            return lemmaOffsets;
+        });
     }
 
     private String checkRequest(SearchRequest request, List<SiteEntity> sitesList) {
@@ -253,7 +411,34 @@ public class SearchServiceImpl implements SearchService {
         return "";
     }
 
-    private record PagesIdProperty(List<Integer> pagesId , Map<SiteEntity
-            , List<Integer>> pagesBySite, SiteEntity site) {
+    /**
+     * Построение сниппета в пуле. Все сниппеты запроса ждут до одного срока, отсчитанного от постановки
+     * в очередь, поэтому ответ задерживается не больше чем на snippetTimeout при любом числе страниц.
+     * Не успевшая задача отменяется с прерыванием: еще не начатая не запускается, выполняемая
+     * прекращает выбор фрагментов и освобождает поток пула.
+     */
+    private class SnippetTask extends FutureTask<String> {
+        SnippetTask(PageSearchInfo page, Set<String> lemmas) {
+            super(() -> createSnippetForPage(page, lemmas));
+        }
+
+        /**
+         * Сниппет или null, если задача не успела к сроку deadline (по System.nanoTime),
+         * отменена или завершилась ошибкой.
+         */
+        String getSnippet(long deadline) {
+            try {
+                return get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                cancel(true);
+                return null;
+            } catch (CancellationException | ExecutionException e) {
+                return null;
+            } catch (InterruptedException e) {
+                cancel(true);
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
     }
 }
@@ -1,10 +1,16 @@
 package searchengine.services;
 
+import searchengine.data.statistics.IndexingStageMetrics;
 import searchengine.dto.response.CommonResponse;
 
+import java.util.List;
+
 public interface SiteIndexingService {
-    CommonResponse indexAllSites();
+    CommonResponse indexAllSites(boolean isIncremental);
     CommonResponse stopIndexing() throws InterruptedException;
+    CommonResponse resumeIndexing();
 
     CommonResponse indexPageByPath(String url) throws Exception;
+
+    List<IndexingStageMetrics> getIndexingMetrics();
 }
@@ -1,18 +1,20 @@
 package searchengine.services;
 
 import lombok.RequiredArgsConstructor;
-import org.hibernate.exception.ConstraintViolationException;
 import org.jsoup.HttpStatusException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import searchengine.config.JsoupSettings;
 import searchengine.config.Site;
 import searchengine.config.SitesList;
+import searchengine.data.siteindexing.FrontierLink;
+import searchengine.data.siteindexing.IndexedPage;
+import searchengine.data.siteindexing.IndexingMode;
 import searchengine.data.siteindexing.InputSiteIndexingLink;
 import searchengine.data.siteindexing.PageParsingInfo;
+import searchengine.data.siteindexing.PageValidators;
 import searchengine.data.siteindexing.SiteIndexingStatus;
+import searchengine.data.statistics.IndexingStageMetrics;
 import searchengine.dto.response.CommonResponse;
 import searchengine.dto.response.ErrorResponse;
 import searchengine.dto.response.SuccessResponse;
@@ -23,16 +25,33 @@ import searchengine.repositories.PageRepository;
 import searchengine.repositories.SiteRepository;
 import searchengine.utils.LemmaParser;
 import searchengine.utils.WebPageParser;
+import searchengine.utils.crawler.BloomFilterVisitedLinkSet;
+import searchengine.utils.crawler.ConcurrentVisitedLinkSet;
+import searchengine.utils.crawler.CrawlBudget;
+import searchengine.utils.crawler.CrawlCheckpointStore;
+import searchengine.utils.crawler.CrawlFrontier;
+import searchengine.utils.crawler.CrawlSeedLoader;
+import searchengine.utils.crawler.HostRateScheduler;
+import searchengine.utils.crawler.RobotsRules;
+import searchengine.utils.crawler.VisitedLinkSet;
+import searchengine.utils.fetcher.FetchResult;
+import searchengine.utils.fetcher.PageFetcher;
+import searchengine.utils.pipeline.PipelineStage;
+import searchengine.utils.pipeline.StageMeter;
+import searchengine.utils.postings.PagePostings;
+import searchengine.utils.search.InvertedIndex;
 
 import java.io.IOException;
 import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
@@ -43,32 +62,98 @@ public class SiteIndexingServiceImpl implements SiteIndexingService {
     private final LemmaRepository lemmaRepository;
     private final IndexRepository indexRepository;
     private final SitesList sites;
-    private final JsoupSettings jsoupSettings;
+    private final PageFetcher pageFetcher;
+    private final CrawlCheckpointStore checkpointStore;
+    private final PageBatchWriter pageBatchWriter;
+    private final CrawlSeedLoader crawlSeedLoader;
+    private final LemmaParser lemmaParser;
+    private final InvertedIndex invertedIndex;
     private List<Thread> siteIndexingThreads;
+    private ExecutorService fetchers;
+    private StageMeter fetchMeter;
+    private PipelineStage<PageTask> parseStage;
+    private PipelineStage<PageTask> writeStage;
+    private final List<SiteCrawler> siteCrawlers = new CopyOnWriteArrayList<>();
+    private final AtomicInteger crawlerCursor = new AtomicInteger();
+    private final HostRateScheduler hostRateScheduler = new HostRateScheduler();
     private AtomicBoolean allowIndexing = new AtomicBoolean();
-    private int MAX_RETRY_INSERT_COUNT = 20;
+    private final int MAX_RETRY_INSERT_COUNT = 20;
+    private final long FRONTIER_POLL_TIMEOUT = 100;
+    private final long FETCHER_IDLE_TIMEOUT = 10;
+    private final double BLOOM_FILTER_FALSE_POSITIVE_RATE = 0.001;
+    private final double ROOT_LINK_PRIORITY = 2;
     @Override
-    public CommonResponse indexAllSites() {
+    public CommonResponse indexAllSites(boolean isIncremental) {
         if(isIndexingActive()) {
             return getErrorResponse("Индексация уже запущена");
         }
 
+        if (!isIncremental) {
+            clearDb();
+        }
+
+        startSitesIndexing(sites.getSites(), isIncremental ? IndexingMode.INCREMENTAL : IndexingMode.FULL);
+        return new SuccessResponse();
+    }
+
+    @Override
+    public CommonResponse resumeIndexing() {
+        if(isIndexingActive()) {
+            return getErrorResponse("Индексация уже запущена");
+        }
+
+        List<Site> resumedSites = sites.getSites().stream()
+                .filter(s -> checkpointStore.exists(s.getUrl()))
+                .toList();
+        if (resumedSites.isEmpty()) {
+            return getErrorResponse("Нет сохраненного состояния индексации");
+        }
+
+        startSitesIndexing(resumedSites, IndexingMode.RESUME);
+        return new SuccessResponse();
+    }
+
+    private void startSitesIndexing(List<Site> indexedSites, IndexingMode mode) {
         allowIndexing.set(true);
-        clearDb();
 
         siteIndexingThreads = new ArrayList<>();
-        sites.getSites().forEach(s -> siteIndexingThreads.add(new Thread(() -> {
-            SiteEntity site = createSiteEntity(s);
+        indexedSites.forEach(s -> siteIndexingThreads.add(new Thread(() -> {
+            SiteEntity site = mode == IndexingMode.FULL ? createSiteEntity(s) : getSiteEntityForRecrawl(s);
             try {
-                indexSite(site);
+                indexSite(site, s, mode);
             } catch (InterruptedException e) {
                 throw new RuntimeException(e);
             }
         })));
 
         siteIndexingThreads.forEach(Thread::start);
+        startPipelineStages();
+        startFetchers();
+    }
 
-        return new SuccessResponse();
+    /**
+     * Индексация идет конвейером: загрузка страниц - разбор и лемматизация - запись в базу.
+     * У каждой стадии свой пул потоков и ограниченная очередь перед ней,
+     * запись объединяет несколько страниц в одну транзакцию.
+     */
+    private void startPipelineStages() {
+        parseStage = new PipelineStage<>("parse", sites.getParseQueueCapacity(), sites.getParseThreadCount()
+                , 1, 0);
+        writeStage = new PipelineStage<>("write", sites.getWriteQueueCapacity(), sites.getWriteThreadCount()
+                , sites.getWriteBatchSize(), sites.getWriteBatchWaitTime());
+        parseStage.start(tasks -> tasks.forEach(this::parsePage), this::isSiteThreadsAlive);
+        // запись ждет, пока потоки разбора не отдадут последние страницы
+        writeStage.start(this::writePages, () -> !parseStage.isTerminated());
+    }
+
+    @Override
+    public List<IndexingStageMetrics> getIndexingMetrics() {
+        if (fetchMeter == null) {
+            return List.of();
+        }
+
+        int frontierSize = siteCrawlers.stream().mapToInt(c -> c.frontier.size()).sum();
+        return List.of(fetchMeter.getMetrics(frontierSize, null), parseStage.getMetrics(), writeStage.getMetrics());
     }
 
     private ErrorResponse getErrorResponse(String errorText) {
@@ -78,6 +163,7 @@ public class SiteIndexingServiceImpl implements SiteIndexingService {
     }
 
     private void clearDb() {
+        invertedIndex.clear();
         indexRepository.deleteAllIndices();
         lemmaRepository.deleteAllLemmas();
         pageRepository.deleteAllPages();
@@ -130,7 +216,7 @@ public class SiteIndexingServiceImpl implements SiteIndexingService {
 
             InputSiteIndexingLink inputLinks = new InputSiteIndexingLink(site, url, "");
 
-            indexPage(inputLinks, false);
+            indexSinglePage(inputLinks);
         } catch(Exception e) {
             return processPageIndexingError (e, site, url);
         }
@@ -155,17 +241,73 @@ public class SiteIndexingServiceImpl implements SiteIndexingService {
         }
     }
 
-    private void indexSite(SiteEntity site) throws InterruptedException {
+    private void startFetchers() {
+        int fetchThreadCount = sites.getFetchThreadCount();
+        fetchMeter = new StageMeter("fetch", fetchThreadCount);
+        fetchers = Executors.newFixedThreadPool(fetchThreadCount);
+        for (int i = 0; i < fetchThreadCount; i++) {
+            fetchers.execute(this::runFetcher);
+        }
+        fetchers.shutdown();
+    }
+
+    private void runFetcher() {
+        try {
+            while (allowIndexing.get() && isSiteThreadsAlive()) {
+                if (!fetchFromReadyCrawler()) {
+                    Thread.sleep(getFetcherWaitTime());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Загружает ссылку первого по кругу сайта, хост которого готов к запросу.
+     * Если ссылку взять не удалось (лимит исчерпан, индексация остановлена или ссылку забрал другой поток),
+     * резерв хоста отменяется, чтобы не терять интервал между запросами.
+     */
+    private boolean fetchFromReadyCrawler() throws InterruptedException {
+        List<SiteCrawler> crawlers = List.copyOf(siteCrawlers);
+        int startIndex = crawlerCursor.getAndIncrement();
+        for (int i = 0; i < crawlers.size(); i++) {
+            SiteCrawler siteCrawler = crawlers.get(Math.floorMod(startIndex + i, crawlers.size()));
+            if (!siteCrawler.frontier.hasQueuedLinks() || siteCrawler.budget.isExhausted()) {
+                continue;
+            }
+
+            long reservation = hostRateScheduler.tryAcquire(siteCrawler.host, siteCrawler.crawlDelay);
+            FrontierLink link = reservation == 0 || !allowIndexing.get() ? null : siteCrawler.pollLink();
+            if (link != null) {
+                siteCrawler.fetchLink(link);
+                return true;
+            }
+            if (reservation != 0) {
+                hostRateScheduler.cancel(siteCrawler.host, reservation);
+            }
+        }
+
+        return false;
+    }
+
+    private long getFetcherWaitTime() {
+        long waitTime = siteCrawlers.stream()
+                .filter(c -> c.frontier.hasQueuedLinks())
+                .mapToLong(c -> hostRateScheduler.getWaitTime(c.host))
+                .min().orElse(FETCHER_IDLE_TIMEOUT);
+        return Math.max(1, Math.min(waitTime, FETCHER_IDLE_TIMEOUT));
+    }
+
+    private void indexSite(SiteEntity site, Site siteSettings, IndexingMode mode) throws InterruptedException {
         siteRepository.save(site);
         String error;
 
-        int coreCount = Runtime.getRuntime().availableProcessors();
-        RecursiveSiteParser loaderFork = new RecursiveSiteParser(new InputSiteIndexingLink(site,site.getUrl()
-                ,WebPageParser.createDomainPageLinkMask(site.getUrl())),0);
+        SiteCrawler siteCrawler = new SiteCrawler(site, siteSettings, mode);
         try {
-            new ForkJoinPool(coreCount).invoke(loaderFork);
+            siteCrawler.crawl();
         } catch (Exception e) {
-            logger.error("Error of fork execute: " + e.getMessage());
+            logger.error("Error of site crawling: " + e.getMessage());
             allowIndexing.set(false);
             updateSiteEntityStatus(site,SiteIndexingStatus.FAILED,"Ошибка индексации");
             return;
@@ -176,276 +318,432 @@ public class SiteIndexingServiceImpl implements SiteIndexingService {
         }
 
         error = !allowIndexing.get() ? "Индексация остановлена пользователем" : site.getLastError();
+        String budgetStopReason = allowIndexing.get() ? siteCrawler.budget.getStopReason() : null;
 
         SiteIndexingStatus status = error == null ? SiteIndexingStatus.INDEXED
                 : SiteIndexingStatus.FAILED;
+        if (budgetStopReason != null) {
+            error = error == null ? budgetStopReason : error + ". " + budgetStopReason;
+        }
         updateSiteEntityStatus(site,status,error);
     }
 
     private boolean isIndexingActive() {
+        return isSiteThreadsAlive() || (fetchers != null && !fetchers.isTerminated())
+                || (parseStage != null && !parseStage.isTerminated())
+                || (writeStage != null && !writeStage.isTerminated());
+    }
+
+    private boolean isSiteThreadsAlive() {
         return !(siteIndexingThreads == null || (siteIndexingThreads.stream().filter(Thread::isAlive).count() == 0));
     }
 
-    private Set<String> indexPage(InputSiteIndexingLink inputLinks, boolean isSiteIndexing)
-            throws IOException, InterruptedException, HttpStatusException {
+    private void indexSinglePage(InputSiteIndexingLink inputLinks) throws IOException, InterruptedException {
         logger.info("Start indexing page " + inputLinks.link());
 
-        PageParsingInfo pageInfo;
-        String pageLink = WebPageParser.getRelativeLink(WebPageParser
-                .closeLinkSlash(new StringBuilder(inputLinks.link())).toString());
+        PageParsingInfo pageInfo = new WebPageParser(inputLinks, pageFetcher).getPageInfo(null);
+        PageEntity page = pageRepository.findByPathAndSite(getPagePath(inputLinks.link()), inputLinks.site());
 
-        PageEntity page = getPageForIndexing(pageLink,inputLinks, isSiteIndexing);
-        if (page == null) {
-            return null;
+        if (pageInfo.getStatus() != 200) {
+            if (page != null) {
+                pageBatchWriter.removePage(page.getId());
+            }
+            throw new HttpStatusException("Error in indexing page", pageInfo.getStatus(), inputLinks.link());
         }
 
-        WebPageParser webPageParser = new WebPageParser(inputLinks, jsoupSettings);
-        pageInfo = webPageParser.getPageInfo();
+        IndexedPage indexedPage = createIndexedPage(inputLinks, pageInfo, page != null ? page.getId() : null);
+        pageBatchWriter.write(List.of(indexedPage));
 
-        page.setContent(pageInfo.getContent());
-        page.setCode(pageInfo.getStatus());
+        logger.info("End indexing page " + inputLinks.link());
+    }
 
-        if (pageInfo.getStatus() != 200 && !isSiteIndexing) {
-            throw new HttpStatusException("Error in indexing page",pageInfo.getStatus(),inputLinks.link());
+    private void parsePage(PageTask task) {
+        if (!allowIndexing.get()) {
+            task.crawler.releaseLink();
+            return;
         }
 
-        try{
-            pageRepository.save(page);
-        } catch(DataIntegrityViolationException | ConstraintViolationException e) {
-            logger.error("Save page: " + e.getMessage());
-            return null;
-        }
+        boolean isQueuedForWrite = false;
+        try {
+            WebPageParser webPageParser = new WebPageParser(task.inputLinks, pageFetcher);
+            PageParsingInfo pageInfo = webPageParser.parsePage(task.fetchResult);
+            if (task.knownPage != null && isPageUnchanged(pageInfo, task.knownPage)) {
+                logger.info("Page not changed " + task.link.getLink());
+                task.crawler.addSubLinks(task.link, pageInfo.getStatus() == WebPageParser.HTTP_NOT_MODIFIED
+                        ? getStoredPageSubLinks(webPageParser, task.knownPage) : pageInfo.getSubLinks());
+                return;
+            }
 
-        if (isSiteIndexing) {
-            getNewLinks(pageInfo.getSubLinks());
+            task.crawler.addSubLinks(task.link, pageInfo.getSubLinks());
+            task.indexedPage = createIndexedPage(task.inputLinks, pageInfo
+                    , task.knownPage != null ? task.knownPage.getId() : null);
+            writeStage.put(task);
+            isQueuedForWrite = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            recordPageError(task.crawler.site, getPageError(e, task.link.getLink()));
+        } finally {
+            if (!isQueuedForWrite) {
+                task.crawler.finishLink(task.link);
+            }
         }
-
-        saveLemmas(page, pageInfo.getContent(), isSiteIndexing);
-
-        logger.info("End indexing page " + inputLinks.link());
-        return pageInfo.getSubLinks();
     }
 
-    private void getNewLinks(Set<String> links) {
-        if (links == null) {return;}
-
-        Set<String> existedLinks = pageRepository.findPagesByPathList(links.stream()
-                        .map(l -> WebPageParser.getRelativeLink(l)).toList()).stream()
-                 .map(PageEntity::getPath).collect(Collectors.toSet());
-        links.removeIf(l -> existedLinks.contains(WebPageParser.getRelativeLink(l)));
-    }
-
-    private SiteEntity createSiteEntity(Site siteInfo) {
-        SiteEntity site = new SiteEntity();
-        site.setName(siteInfo.getName())
-                .setUrl(siteInfo.getUrl())
-                .setStatus(SiteIndexingStatus.INDEXING)
-                .setStatusTime(LocalDateTime.now());
-        return site;
-    }
+    private void writePages(List<PageTask> tasks) {
+        boolean isWritten = false;
+        try {
+            isWritten = writeIndexedPages(tasks.stream().map(t -> t.indexedPage).toList());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            boolean isProcessed = isWritten || allowIndexing.get();
+            tasks.forEach(t -> {
+                if (isProcessed) {
+                    t.crawler.finishLink(t.link);
+                } else {
+                    t.crawler.releaseLink();
+                }
+            });
+        }
 
-    private void updateSiteEntityStatus(SiteEntity site, SiteIndexingStatus status, String error) {
-        site.setStatus(status)
-                .setLastError(error)
-                .setStatusTime(LocalDateTime.now());
-        siteRepository.save(site);
+        if (isWritten) {
+            tasks.stream().map(t -> t.crawler).distinct().forEach(c -> updateSiteStatusTime(c.site));
+            tasks.forEach(t -> logger.info("End indexing page " + t.link.getLink()));
+        } else if (allowIndexing.get()) {
+            // страницы не сохранены: ошибка сайта переведет его в FAILED по окончании обхода
+            tasks.forEach(t -> recordPageError(t.crawler.site, "Ошибка сохранения страницы - " + t.link.getLink()));
+        }
     }
 
-    private PageEntity getPageForIndexing(String pageLink, InputSiteIndexingLink inputLinks, boolean unique) {
-        PageEntity page = pageRepository.findByPathAndSite(pageLink, inputLinks.site());
-        if (page != null && unique) {
-            return null;
-        }
+    private boolean writeIndexedPages(List<IndexedPage> indexedPages) throws InterruptedException {
+        for (int tryCount = 0; tryCount < MAX_RETRY_INSERT_COUNT && allowIndexing.get(); tryCount++) {
+            try {
+                pageBatchWriter.write(indexedPages);
 
-        if (page != null) {
-            List<Integer> lemmasId = indexRepository.findLemmasIdByPage(page.getId());
-            if (!lemmasId.isEmpty()) {
-                lemmaRepository.decreaseFrequencyById(lemmasId);
-                lemmaRepository.deleteZeroLemmas(lemmasId);
+                if (tryCount != 0) {
+                    logger.info("Pages written with " + tryCount + " try");
+                }
+                return true;
+            } catch (Exception e) {
+                logger.error("Pages write: " + e.getClass() + ": " + indexedPages.size() + " pages: try: " + tryCount);
+                Thread.sleep(1000);
             }
-            indexRepository.deleteByPage(page);
-            pageRepository.delete(page);
         }
 
-        page = new PageEntity();
-        page.setSite(inputLinks.site());
-        page.setPath(pageLink);
+        logger.error("Pages not written: " + indexedPages.size() + " pages");
+        return false;
+    }
 
-        return page;
+    private IndexedPage createIndexedPage(InputSiteIndexingLink inputLinks, PageParsingInfo pageInfo
+            , Integer replacedPageId) {
+        PageEntity page = new PageEntity();
+        page.setSite(inputLinks.site());
+        page.setPath(getPagePath(inputLinks.link()));
+        fillPageByParsingInfo(page, pageInfo);
+
+        IndexedPage indexedPage = new IndexedPage();
+        indexedPage.setPage(page);
+        indexedPage.setPostings(pageInfo.getText() == null ? new PagePostings()
+                : lemmaParser.collectPostings(pageInfo.getText()));
+        indexedPage.setReplacedPageId(replacedPageId);
+        return indexedPage;
     }
 
-    private void saveLemmas(PageEntity page, String content, boolean isSiteIndexing)
-            throws IOException, InterruptedException {
-        if (page == null || content == null) {
-            return;
+    private String getPageError(Exception e, String link) {
+        if (e instanceof SocketTimeoutException || e instanceof HttpTimeoutException) {
+            return e.getMessage() + ": " + link;
         }
 
-        Map<String, Integer> lemmas = LemmaParser.getInstance()
-                .collectLemmas(WebPageParser.getTextFromHTML(content));
+        logger.error("Page indexing error: ", e);
+        return "Internal error: " + e.getClass() + ": " + link;
+    }
 
-        if (lemmas.isEmpty()) {
-            return;
+    private void recordPageError(SiteEntity site, String error) {
+        try {
+            updateSiteEntityStatus(site, SiteIndexingStatus.INDEXING, error);
+        } catch (Exception e) {
+            logger.error("Site info update error: ", e);
         }
+    }
 
-        if (!insertLemmas(page, lemmas, isSiteIndexing)) {
-            return;
+    private void updateSiteStatusTime(SiteEntity site) {
+        try {
+            site.setStatusTime(LocalDateTime.now());
+            siteRepository.save(site);
+        } catch (Exception e) {
+            logger.error("Site info update error: ", e);
         }
+    }
 
-        insertIndices(page, lemmas);
+    private static String getPagePath(String link) {
+        return WebPageParser.getRelativeLink(WebPageParser.closeLinkSlash(new StringBuilder(link)).toString());
     }
 
-    private boolean insertLemmas(PageEntity page, Map<String, Integer> lemmas, boolean isSiteIndexing)
-            throws InterruptedException {
-        boolean isLemmasSaved;
-        List<String> queryLemmas;
-        if (isSiteIndexing) {
-            queryLemmas = lemmaRepository.getSaveLemmasQueriesMasInsert(lemmas.keySet(), page.getSite());
-        } else {
-            lemmaRepository.saveLemmas(lemmas.keySet(), page.getSite());
-            return true;
-        }
+    private boolean isPageUnchanged(PageParsingInfo pageInfo, PageValidators knownPage) {
+        return pageInfo.getStatus() == WebPageParser.HTTP_NOT_MODIFIED
+                || (pageInfo.getStatus() == 200 && pageInfo.getContentHash() != null
+                && pageInfo.getContentHash().equals(knownPage.getContentHash()));
+    }
 
-        for (String queryLemma : queryLemmas) {
-            isLemmasSaved = tryInsertLemma(page, queryLemma);
-            if (!isLemmasSaved) {
-                logger.error("Lemmas not saved: "  + page.getPath());
-                return isLemmasSaved;
-            }
+    /**
+     * Ссылки страницы, не изменившейся с прошлого обхода (ответ 304): сохраненные при индексации,
+     * а для страниц, проиндексированных без них, - из сохраненного HTML.
+     */
+    private Set<String> getStoredPageSubLinks(WebPageParser webPageParser, PageValidators knownPage) {
+        String subLinks = pageRepository.findSubLinksById(knownPage.getId());
+        if (subLinks != null) {
+            return subLinks.isEmpty() ? Set.of() : new HashSet<>(Arrays.asList(subLinks.split("\n")));
         }
 
-        return true;
+        String content = pageRepository.findContentById(knownPage.getId());
+        return content == null ? null : webPageParser.getSubLinks(content);
     }
 
-    private boolean tryInsertLemma(PageEntity page, String queryLemma) throws InterruptedException {
-        boolean isLemmasSaved = false;
-        int tryCount = 0;
-        while (!isLemmasSaved && tryCount < MAX_RETRY_INSERT_COUNT) {
-            if(!allowIndexing.get()) {
-                return false;
-            }
+    private void fillPageByParsingInfo(PageEntity page, PageParsingInfo pageInfo) {
+        page.setContent(pageInfo.getContent());
+        page.setText(pageInfo.getText());
+        page.setTitle(pageInfo.getTitle());
+        page.setDescription(pageInfo.getDescription());
+        page.setCode(pageInfo.getStatus());
+        page.setEtag(pageInfo.getEtag());
+        page.setLastModified(pageInfo.getLastModified());
+        page.setContentHash(pageInfo.getContentHash());
+        page.setSubLinks(pageInfo.getSubLinks() == null ? null : String.join("\n", pageInfo.getSubLinks()));
+    }
 
-            isLemmasSaved = insertLemma(page, tryCount, queryLemma);
-            tryCount = !isLemmasSaved ? ++tryCount : tryCount;
+    private SiteEntity createSiteEntity(Site siteInfo) {
+        SiteEntity site = new SiteEntity();
+        site.setName(siteInfo.getName())
+                .setUrl(siteInfo.getUrl())
+                .setStatus(SiteIndexingStatus.INDEXING)
+                .setStatusTime(LocalDateTime.now());
+        return site;
+    }
+
+    private SiteEntity getSiteEntityForRecrawl(Site siteInfo) {
+        SiteEntity site = siteRepository.findByUrl(siteInfo.getUrl());
+        if (site == null) {
+            return createSiteEntity(siteInfo);
         }
 
-        return isLemmasSaved;
+        site.setStatus(SiteIndexingStatus.INDEXING)
+                .setLastError(null)
+                .setStatusTime(LocalDateTime.now());
+        return site;
     }
 
-    private boolean insertLemma(PageEntity page, int tryCount, String queryLemma) throws InterruptedException {
-        try {
-            lemmaRepository.saveLemmasByProcedure(queryLemma);
+    private void updateSiteEntityStatus(SiteEntity site, SiteIndexingStatus status, String error) {
+        site.setStatus(status)
+                .setLastError(error)
+                .setStatusTime(LocalDateTime.now());
+        siteRepository.save(site);
+    }
 
-            if (tryCount != 0) {
-                logger.info("Lemma add with " + tryCount + " try");
-            }
-        } catch (Exception e) {
-            logger.error("Lemmas save: " + e.getClass() + ": " + page.getPath() + ": try: " + tryCount);
-            Thread.sleep(1000);
-            return false;
+    private class SiteCrawler {
+        private final SiteEntity site;
+        private final String mask;
+        private final String host;
+        private final Site siteSettings;
+        private long crawlDelay;
+        private RobotsRules robotsRules = RobotsRules.allowAll();
+        private final IndexingMode mode;
+        private final CrawlFrontier frontier = new CrawlFrontier();
+        private final VisitedLinkSet visitedLinks;
+        private final Map<String, PageValidators> knownPages = new HashMap<>();
+        private final AtomicInteger inFlightCount = new AtomicInteger();
+        private final CrawlBudget budget;
+
+        public SiteCrawler(SiteEntity site, Site siteSettings, IndexingMode mode) {
+            this.site = site;
+            this.mode = mode;
+            this.mask = WebPageParser.createDomainPageLinkMask(site.getUrl());
+            this.host = WebPageParser.getDomainLink(site.getUrl());
+            this.siteSettings = siteSettings;
+            this.budget = new CrawlBudget(siteSettings);
+            this.crawlDelay = siteSettings.getCrawlDelay();
+            this.visitedLinks = siteSettings.getBloomFilterCapacity() > 0
+                    ? new BloomFilterVisitedLinkSet(siteSettings.getBloomFilterCapacity()
+                            , BLOOM_FILTER_FALSE_POSITIVE_RATE)
+                    : new ConcurrentVisitedLinkSet();
         }
 
-        return true;
-    }
+        public void crawl() throws InterruptedException {
+            pageRepository.findValidatorsBySite(site).forEach(p -> knownPages.put(p.getPath(), p));
+            loadRobotsRules();
+            seedFrontier();
 
-    private boolean insertIndices(PageEntity page, Map<String, Integer> lemmas) throws InterruptedException {
-        int tryCount = 0;
-        boolean isIndexSaved = false;
-        while (!isIndexSaved && tryCount < MAX_RETRY_INSERT_COUNT) {
-            if (!allowIndexing.get()) {
-                return false;
+            siteCrawlers.add(this);
+            try {
+                waitCrawlEnd();
+            } finally {
+                siteCrawlers.remove(this);
             }
 
-            isIndexSaved = insertIndex(page, lemmas, tryCount);
-            if (!isIndexSaved) {
-                tryCount++;
+            if (frontier.isExhausted() || budget.isExhausted()) {
+                checkpointStore.delete(site.getUrl());
+            } else {
+                saveCheckpoint();
             }
         }
 
-        if (!isIndexSaved) {
-            logger.error("Index not saved: "  + page.getPath());
-            return isIndexSaved;
-        }
+        private void loadRobotsRules() throws InterruptedException {
+            if (!siteSettings.isRespectRobotsTxt()) {
+                return;
+            }
 
-        return true;
-    }
+            robotsRules = crawlSeedLoader.loadRobotsRules(site.getUrl());
+            crawlDelay = Math.max(crawlDelay, robotsRules.getCrawlDelay());
+        }
 
-    private boolean insertIndex(PageEntity page, Map<String, Integer> lemmas, int tryCount)
-            throws InterruptedException {
-        try {
-            indexRepository.saveIndices(lemmas, page);
+        private void seedFrontier() throws InterruptedException {
+            if (mode == IndexingMode.RESUME) {
+                try {
+                    checkpointStore.load(site.getUrl(), frontier, visitedLinks);
+                    frontier.getSnapshot().forEach(l -> visitedLinks.add(getPagePath(l.getLink())));
+                    logger.info("Site " + site.getUrl() + " resumed with frontier size " + frontier.size());
+                    return;
+                } catch (IOException e) {
+                    logger.error("Checkpoint load error: " + e.getMessage());
+                }
+            }
 
-            if (tryCount != 0) {
-                logger.info("Index add with " + tryCount + " try");
+            if (isCrawlAllowed(site.getUrl())) {
+                frontier.addUnvisited(new FrontierLink(site.getUrl(), 0, ROOT_LINK_PRIORITY)
+                        , getPagePath(site.getUrl()), visitedLinks);
             }
 
-            return true;
-        } catch (Exception e) {
-            logger.error("Indices save: " + e.getClass() + ": " + page.getPath() + ": try: " + tryCount);
-            Thread.sleep(1000);
-            return false;
+            if (siteSettings.isUseSitemaps()) {
+                crawlSeedLoader.loadSitemapLinks(site.getUrl(), robotsRules.getSitemaps(), crawlDelay).stream()
+                        .filter(l -> WebPageParser.closeLinkSlash(new StringBuilder(l.getLink())).toString()
+                                .matches(mask))
+                        .filter(l -> isCrawlAllowed(l.getLink()) && budget.isDepthAllowed(l.getDepth()))
+                        .forEach(l -> frontier.addUnvisited(l, getPagePath(l.getLink()), visitedLinks));
+                logger.info("Site " + site.getUrl() + " seeded with frontier size " + frontier.size());
+            }
         }
-    }
 
-    private boolean isContinueJobAfterSetSiteStatus(InputSiteIndexingLink inputLinks, String error) {
-        try {
-            if (error != null) {
-                updateSiteEntityStatus(inputLinks.site(), SiteIndexingStatus.INDEXING, error);
-                return false;
-            } else {
-                inputLinks.site().setStatusTime(LocalDateTime.now());
-                siteRepository.save(inputLinks.site());
-            }
-        } catch (Exception e) {
-            logger.error("Site info update error: ", e);
+        private boolean isCrawlAllowed(String link) {
+            String path = WebPageParser.getRelativeLink(link);
+            return robotsRules.isAllowed(path.isEmpty() ? "/" : path);
         }
 
-        return true;
-    }
+        private void waitCrawlEnd() throws InterruptedException {
+            long lastCheckpointTime = System.currentTimeMillis();
+            while (!frontier.isExhausted()
+                    && ((allowIndexing.get() && !budget.isExhausted()) || inFlightCount.get() > 0)) {
+                Thread.sleep(FRONTIER_POLL_TIMEOUT);
 
-    private class RecursiveSiteParser extends RecursiveAction {
-        private InputSiteIndexingLink inputLinks;
-        private int level;
+                if (System.currentTimeMillis() - lastCheckpointTime >= sites.getCheckpointInterval()) {
+                    saveCheckpoint();
+                    lastCheckpointTime = System.currentTimeMillis();
+                }
+            }
+        }
 
-        public RecursiveSiteParser(InputSiteIndexingLink inputLinks, int level) {
-            this.inputLinks = inputLinks;
-            this.level = level;
+        private void saveCheckpoint() {
+            try {
+                checkpointStore.save(site.getUrl(), frontier, visitedLinks);
+            } catch (IOException e) {
+                logger.error("Checkpoint save error: " + e.getMessage());
+            }
         }
 
-        @Override
-        protected void compute() {
+        /**
+         * Резервирует страницу в лимите и берет ссылку из фронтира; null, если загружать нечего.
+         */
+        public FrontierLink pollLink() {
+            if (!budget.tryReservePage()) {
+                return null;
+            }
 
-            if (!allowIndexing.get()) {
-                return;
+            inFlightCount.incrementAndGet();
+            FrontierLink link = frontier.poll();
+            if (link == null) {
+                inFlightCount.decrementAndGet();
+                budget.releasePage();
             }
+            return link;
+        }
 
-            String error = null;
-            Set<String> subLinks = null;
+        public void fetchLink(FrontierLink link) throws InterruptedException {
+            PageTask task = new PageTask(this, link);
+            boolean isHandedOver = false;
             try {
-                subLinks = indexPage(inputLinks, true);
-            } catch (SocketTimeoutException e) {
-                error = e.getMessage() + ": " + inputLinks.link();
-            } catch (Exception e) {
-                error = "Internal error: " + e.getClass() + ": " + inputLinks.link();
-                logger.error("Page indexing error: ", e);
+                if (fetchPage(task)) {
+                    parseStage.put(task);
+                }
+                isHandedOver = true;
+            } finally {
+                if (!isHandedOver) {
+                    releaseLink();
+                }
             }
+        }
 
-            if (!isContinueJobAfterSetSiteStatus(inputLinks, error)) {
-                return;
+        /**
+         * Загружает страницу; при ошибке загрузки ссылка завершается и возвращается false.
+         */
+        private boolean fetchPage(PageTask task) throws InterruptedException {
+            long startTime = System.nanoTime();
+            try {
+                logger.info("Start indexing page " + task.link.getLink());
+                task.fetchResult = pageFetcher.fetch(task.link.getLink(), task.knownPage);
+                budget.addDownloadedBytes(task.fetchResult.getBody().length);
+                return true;
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                recordPageError(site, getPageError(e, task.link.getLink()));
+                finishLink(task.link);
+                return false;
+            } finally {
+                fetchMeter.record(1, startTime);
             }
+        }
 
+        public void addSubLinks(FrontierLink link, Set<String> subLinks) {
             if (subLinks == null) {
                 return;
             }
 
-            List<RecursiveSiteParser> taskList = new ArrayList<>();
-            for (String subLink : subLinks) {
-                RecursiveSiteParser task = new RecursiveSiteParser(
-                        new InputSiteIndexingLink(inputLinks.site(), subLink, inputLinks.mask()), level + 1);
-                taskList.add(task);
-            }
+            subLinks.stream()
+                    .filter(l -> isCrawlAllowed(l) && !visitedLinks.contains(getPagePath(l)))
+                    .filter(l -> budget.isDepthAllowed(link.getDepth() + 1))
+                    .forEach(l -> frontier.addUnvisited(new FrontierLink(l, link.getDepth() + 1)
+                            , getPagePath(l), visitedLinks));
+        }
+
+        /**
+         * Ссылка обработана всеми стадиями конвейера и удаляется из фронтира.
+         */
+        public void finishLink(FrontierLink link) {
+            frontier.complete(link);
+            inFlightCount.decrementAndGet();
+        }
+
+        /**
+         * Обработка прервана остановкой индексации: ссылка остается во фронтире
+         * и попадет в сохраненное состояние для возобновления.
+         */
+        public void releaseLink() {
+            inFlightCount.decrementAndGet();
+        }
+    }
 
-            invokeAll(taskList);
-            inputLinks = null;
+    private class PageTask {
+        private final SiteCrawler crawler;
+        private final FrontierLink link;
+        private final InputSiteIndexingLink inputLinks;
+        private final PageValidators knownPage;
+        private FetchResult fetchResult;
+        private IndexedPage indexedPage;
+
+        public PageTask(SiteCrawler crawler, FrontierLink link) {
+            this.crawler = crawler;
+            this.link = link;
+            this.inputLinks = new InputSiteIndexingLink(crawler.site, link.getLink(), crawler.mask);
+            this.knownPage = crawler.knownPages.get(getPagePath(link.getLink()));
         }
     }
 }
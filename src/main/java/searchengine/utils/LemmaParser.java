@@ -3,56 +3,103 @@ package searchengine.utils;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.apache.lucene.morphology.LuceneMorphology;
-import org.apache.lucene.morphology.WrongCharaterException;
 import org.apache.lucene.morphology.english.EnglishLuceneMorphology;
 import org.apache.lucene.morphology.russian.RussianLuceneMorphology;
-
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import searchengine.config.LemmatizerSettings;
+import searchengine.data.statistics.CacheMetrics;
+import searchengine.utils.cache.LruCache;
+import searchengine.utils.postings.PagePostings;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
+import java.nio.CharBuffer;
 import java.util.*;
-
-@RequiredArgsConstructor
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Лемматизатор на общих словарях морфологии. Словари загружаются один раз при старте
+ * приложения; сам парсер не хранит изменяемого состояния и используется всеми потоками
+ * индексации и поиска одновременно.
+ * Результаты морфологического разбора словоформ кэшируются: в тексте небольшое число
+ * словоформ составляет большую часть слов.
+ * Большие тексты разбиваются по границам слов на части, которые лемматизируются параллельно.
+ */
+@Component
 public class LemmaParser {
+    Logger logger = LoggerFactory.getLogger(LemmaParser.class);
     private final LuceneMorphology luceneMorphologyRu;
     private final LuceneMorphology luceneMorphologyEn;
+    // русские и английские словоформы состоят из разных алфавитов, поэтому кэш общий
+    private final LruCache<String, WordForm> wordFormCache;
+    // леммы считаются в экземпляре потока, наружу отдается копия точного размера
+    private final ThreadLocal<PagePostings> threadPostings = ThreadLocal.withInitial(PagePostings::new);
+    private final LemmatizerSettings lemmatizerSettings;
+    private final ForkJoinPool lemmatizationPool;
+    private final String WARM_UP_TEXT = "Прогрев словарей морфологии перед первым запросом. Dictionaries warm up";
 
-    public static LemmaParser getInstance() throws IOException {
-        LuceneMorphology morphologyRu= new RussianLuceneMorphology();
-        LuceneMorphology morphologyEn= new EnglishLuceneMorphology();
-        return new LemmaParser(morphologyRu, morphologyEn);
+    public LemmaParser(LemmatizerSettings lemmatizerSettings) throws IOException {
+        this.luceneMorphologyRu = new RussianLuceneMorphology();
+        this.luceneMorphologyEn = new EnglishLuceneMorphology();
+        this.wordFormCache = new LruCache<>(lemmatizerSettings.getWordCacheSize());
+        this.lemmatizerSettings = lemmatizerSettings;
+        this.lemmatizationPool = new ForkJoinPool(Math.max(1, lemmatizerSettings.getParallelism()));
     }
 
-    public Map<String, Integer> collectLemmas(String text) {
-        String[] wordsRu = arrayContainsWords(text, LanguagePropertyEnum.RU);
-        String[] wordsEn = arrayContainsWords(text, LanguagePropertyEnum.EN);
-        HashMap<String, Integer> lemmas = new HashMap<>();
+    @PreDestroy
+    public void shutdown() {
+        lemmatizationPool.shutdown();
+    }
 
-        for (String word : wordsRu) {
-            findLemma(word, LanguagePropertyEnum.RU, lemmas);
-        }
+    @PostConstruct
+    public void warmUp() {
+        long startTime = System.currentTimeMillis();
+        collectPostings(WARM_UP_TEXT);
+        getLemmaSet(WARM_UP_TEXT);
+        logger.info("Lemma parser warmed up in " + (System.currentTimeMillis() - startTime) + " ms");
+    }
 
-        for (String word : wordsEn) {
-            findLemma(word, LanguagePropertyEnum.EN, lemmas);
+    /**
+     * Частоты и вхождения лемм текста; смещения вхождений - индексы символов в text.
+     */
+    public PagePostings collectPostings(String text) {
+        int parallelThreshold = lemmatizerSettings.getParallelThreshold();
+        if (parallelThreshold > 0 && text.length() >= parallelThreshold) {
+            return lemmatizationPool.invoke(new LemmaCountTask(text, 0, text.length()));
         }
 
-        return lemmas;
+        return countLemmas(text, 0);
+    }
+
+    private PagePostings countLemmas(CharSequence text, int baseOffset) {
+        PagePostings postings = threadPostings.get();
+        postings.clear();
+        TextTokenizer.tokenize(text, (script, start, end) -> postings.addToken(findLemma(
+                TextTokenizer.toLowerCase(text, start, end), LanguagePropertyEnum.getByScript(script))
+                , baseOffset + start));
+        return postings.copy();
     }
 
     public Map<String,Set<String>> getLemmaSet(String text) {
-        String[] textArrayRu = arrayContainsWords(text, LanguagePropertyEnum.RU);
-        String[] textArrayEn = arrayContainsWords(text, LanguagePropertyEnum.EN);
         Map<String,Set<String>> lemmaMap = new LinkedHashMap<>();
-
-        for (String word : textArrayRu) {
-            addLemmaSetToMap(word, LanguagePropertyEnum.RU, lemmaMap);
-        }
-
-        for (String word : textArrayEn) {
-            addLemmaSetToMap(word, LanguagePropertyEnum.EN, lemmaMap);
-        }
-
+        TextTokenizer.tokenize(text, (script, start, end) -> addLemmaSetToMap(
+                TextTokenizer.toLowerCase(text, start, end), LanguagePropertyEnum.getByScript(script), lemmaMap));
         return lemmaMap;
     }
 
+    /**
+     * Слова текста в нижнем регистре по порядку, включая служебные.
+     */
+    public List<String> getWords(String text) {
+        List<String> words = new ArrayList<>();
+        TextTokenizer.tokenize(text, (script, start, end) -> words.add(TextTokenizer.toLowerCase(text, start, end)));
+        return words;
+    }
+
     private void addLemmaSetToMap(String word, LanguagePropertyEnum language, Map<String,Set<String>> lemmaMap) {
         Set<String> lemmaSet = new HashSet<>();
         findLemmaToSet(word, language, lemmaSet);
@@ -68,6 +115,25 @@ public class LemmaParser {
         lemmaMap.get(word).addAll(lemmaSet);
     }
 
+    public CacheMetrics getWordCacheMetrics() {
+        return wordFormCache.getMetrics("lemmatizer-words");
+    }
+
+    private WordForm getWordForm(String word, LanguagePropertyEnum language) {
+        return wordFormCache.computeIfAbsent(word, w -> analyzeWord(w, language));
+    }
+
+    private WordForm analyzeWord(String word, LanguagePropertyEnum language) {
+        LuceneMorphology luceneMorphology = language == LanguagePropertyEnum.RU ?
+                luceneMorphologyRu : luceneMorphologyEn;
+
+        List<String> wordBaseForms = luceneMorphology.getMorphInfo(word);
+        boolean isParticle = anyWordBaseBelongToParticle(wordBaseForms, language);
+        boolean isCorrectForm = isCorrectWordForm(wordBaseForms, language);
+        List<String> normalForms = isParticle ? List.of() : List.copyOf(luceneMorphology.getNormalForms(word));
+        return new WordForm(normalForms, isParticle, isCorrectForm);
+    }
+
     private boolean anyWordBaseBelongToParticle(List<String> wordBaseForms, LanguagePropertyEnum language) {
         return wordBaseForms.stream().anyMatch(w -> hasParticleProperty(w, language));
     }
@@ -81,19 +147,7 @@ public class LemmaParser {
         return false;
     }
 
-    private String[] arrayContainsWords(String text, LanguagePropertyEnum language) {
-        Locale locale = language == LanguagePropertyEnum.RU ?
-                Locale.forLanguageTag("ru-RU") : Locale.forLanguageTag("en");
-
-        return text.toLowerCase(locale)
-                .replaceAll(language.getWordReplaceRegexp(), " ")
-                .trim()
-                .split("\\s+");
-    }
-
-    private boolean isCorrectWordForm(String word, LuceneMorphology luceneMorphology
-            , LanguagePropertyEnum languagePropertyEnum) {
-        List<String> wordInfo = luceneMorphology.getMorphInfo(word);
+    private boolean isCorrectWordForm(List<String> wordInfo, LanguagePropertyEnum languagePropertyEnum) {
         for (String morphInfo : wordInfo) {
             if (morphInfo.matches(languagePropertyEnum.getWordTypeRegex())) {
                 return false;
@@ -102,149 +156,85 @@ public class LemmaParser {
         return true;
     }
 
-    private void findLemma(String word, LanguagePropertyEnum language
-            , HashMap<String, Integer> lemmas) {
-        LuceneMorphology luceneMorphology = language == LanguagePropertyEnum.RU ?
-                luceneMorphologyRu : luceneMorphologyEn;
-
+    private String findLemma(String word, LanguagePropertyEnum language) {
         if (word.isBlank()) {
-            return;
-        }
-
-        List<String> wordBaseForms = luceneMorphology.getMorphInfo(word);
-        if (anyWordBaseBelongToParticle(wordBaseForms, language)) {
-            return;
+            return null;
         }
 
-        List<String> normalForms = luceneMorphology.getNormalForms(word);
-        if (normalForms.isEmpty()) {
-            return;
-        }
-
-        String normalWord = normalForms.get(0);
-
-        if (lemmas.containsKey(normalWord)) {
-            lemmas.put(normalWord, lemmas.get(normalWord) + 1);
-        } else {
-            lemmas.put(normalWord, 1);
-        }
+        WordForm wordForm = getWordForm(word, language);
+        List<String> normalForms = wordForm.getNormalForms();
+        return wordForm.isParticle() || normalForms.isEmpty() ? null : normalForms.get(0);
     }
 
     private void findLemmaToSet(String word, LanguagePropertyEnum language
             , Set<String> lemmaSet) {
-        LuceneMorphology luceneMorphology = language == LanguagePropertyEnum.RU ?
-                luceneMorphologyRu : luceneMorphologyEn;
-
-        if (!word.isEmpty() && isCorrectWordForm(word, luceneMorphology, language)) {
-            List<String> wordBaseForms = luceneMorphology.getMorphInfo(word);
-            if (anyWordBaseBelongToParticle(wordBaseForms, language)) {
-                return;
-            }
-
-            lemmaSet.addAll(luceneMorphology.getNormalForms(word));
-        }
-    }
-
-    public Map<String,Set<String>> getWordsByLemmas(String text, Set<String> lemmas) {
-        Map<String,Set<String>> matchingWords = new LinkedHashMap<>();
-
-        if (text == null || text.isEmpty() ||
-                lemmas == null || lemmas.isEmpty()) {
-            return matchingWords;
+        if (word.isEmpty()) {
+            return;
         }
 
-        List<WordProperty> words = getWordsPropertyList(text);
-
-        Set<String> ruLemmas = new HashSet<>();
-        Set<String> enLemmas = new HashSet<>();
-        LanguagePropertyEnum languagePropertyEnumRu = LanguagePropertyEnum.RU;
-        LanguagePropertyEnum languagePropertyEnumEn = LanguagePropertyEnum.EN;
-
-        lemmas.forEach(l -> {
-            if (isWordEqualLanguage(l, Locale.forLanguageTag("ru-RU"), languagePropertyEnumRu)) {
-                ruLemmas.add(l);
-            }
-            if (isWordEqualLanguage(l, Locale.forLanguageTag("en"), languagePropertyEnumEn)) {
-                enLemmas.add(l);
-            }
-        });
-
-        for (WordProperty wordProperty : words) {
-            boolean isRuWord = wordProperty.language == LanguagePropertyEnum.RU;
-            Set<String> langLemmas = isRuWord ? ruLemmas : enLemmas;
-            addMatchingWord(matchingWords, wordProperty, langLemmas);
+        WordForm wordForm = getWordForm(word, language);
+        if (wordForm.isCorrectForm() && !wordForm.isParticle()) {
+            lemmaSet.addAll(wordForm.getNormalForms());
         }
-
-        return matchingWords;
     }
 
-    private void addMatchingWord(Map<String,Set<String>> matchingWords
-            , WordProperty wordProperty, Set<String> langLemmas) {
-        try {
-            Set<String> currentWordLemmas = new LinkedHashSet<>();
+    @Getter
+    @RequiredArgsConstructor
+    public enum LanguagePropertyEnum {
+        RU("\\W\\w&&[^а-яёА-ЯЁ\\s]"
+                , new String[]{"МЕЖД", "ПРЕДЛ", "СОЮЗ", "ЧАСТ"})
+        ,EN("\\W\\w&&[^a-zA-Z\\s]"
+                , new String[]{"PREP", "ARTICLE", "CONJ"});
 
-            findLemmaToSet(wordProperty.word.toLowerCase(wordProperty.local)
-                    , wordProperty.language, currentWordLemmas);
+        private final String wordTypeRegex;
+        private final String[] particlesNames;
 
-            if (langLemmas.stream().anyMatch(currentWordLemmas::contains)) {
-                addWordToMatchingSet(currentWordLemmas, matchingWords, wordProperty);
-            }
-        } catch (WrongCharaterException e) {
+        public static LanguagePropertyEnum getByScript(TextTokenizer.Script script) {
+            return script == TextTokenizer.Script.CYRILLIC ? RU : EN;
         }
     }
 
-    private void addWordToMatchingSet(Set<String> currentWordLemmas, Map<String
-            , Set<String>> matchingWords, WordProperty wordProperty) {
-        String wordLemma = currentWordLemmas.iterator().next();
-        Set<String> matchingWordsSet = matchingWords.get(wordLemma);
-        if (matchingWordsSet == null) {
-            matchingWordsSet = new LinkedHashSet<>();
-            matchingWords.put(wordLemma, matchingWordsSet);
-        }
-        matchingWordsSet.add(wordProperty.word);
-    }
+    /**
+     * Лемматизация части текста [start, end): части больше parallelChunkSize
+     * делятся пополам по границе слов, леммы правой части присоединяются к левой.
+     */
+    private class LemmaCountTask extends RecursiveTask<PagePostings> {
+        private static final long serialVersionUID = 1L;
 
-    private List<WordProperty> getWordsPropertyList(String text) {
-        String regexp = "([^а-яёА-ЯЁa-zA-Z\\s])";
-        List<WordProperty> wordProperties = new ArrayList<>();
-        String[] words = text.replaceAll(regexp, " ")
-                .trim()
-                .split("\\s+");
+        private final String text;
+        private final int start;
+        private final int end;
 
-        for (String word : words) {
-            LanguagePropertyEnum language = LanguagePropertyEnum.RU;
-            Locale locale = Locale.forLanguageTag("ru-RU");
+        LemmaCountTask(String text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
 
-            if (!isWordEqualLanguage(word, locale, language)) {
-                language = LanguagePropertyEnum.EN;
-                locale = Locale.forLanguageTag("en");
+        @Override
+        protected PagePostings compute() {
+            int middle = TextTokenizer.findTokenBoundary(text, start + (end - start) / 2, end);
+            if (end - start <= Math.max(1, lemmatizerSettings.getParallelChunkSize()) || middle >= end) {
+                return countLemmas(CharBuffer.wrap(text, start, end), start);
             }
 
-            wordProperties.add(new WordProperty(word, locale, language));
+            LemmaCountTask leftTask = new LemmaCountTask(text, start, middle);
+            leftTask.fork();
+            PagePostings rightPostings = new LemmaCountTask(text, middle, end).compute();
+            PagePostings postings = leftTask.join();
+            postings.append(rightPostings);
+            return postings;
         }
-
-        return wordProperties;
-    }
-
-    private boolean isWordEqualLanguage(String word, Locale locale, LanguagePropertyEnum language) {
-        return !word.toLowerCase(locale)
-                .replaceAll(language.getWordReplaceRegexp(), "")
-                .isEmpty();
     }
 
+    /**
+     * Результат морфологического разбора словоформы.
+     */
     @Getter
     @RequiredArgsConstructor
-    public enum LanguagePropertyEnum {
-        RU("\\W\\w&&[^а-яёА-ЯЁ\\s]", "([^а-яё\\s])"
-                , new String[]{"МЕЖД", "ПРЕДЛ", "СОЮЗ", "ЧАСТ"})
-        ,EN("\\W\\w&&[^a-zA-Z\\s]", "([^a-z\\s])"
-                , new String[]{"PREP", "ARTICLE", "CONJ"});
-
-        private final String wordTypeRegex;
-        private final String wordReplaceRegexp;
-        private final String[] particlesNames;
-    }
-
-    private record WordProperty(String word, Locale local, LanguagePropertyEnum language) {
+    private static class WordForm {
+        private final List<String> normalForms;
+        private final boolean isParticle;
+        private final boolean isCorrectForm;
     }
 }
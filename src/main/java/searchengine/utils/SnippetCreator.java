@@ -2,190 +2,205 @@ package searchengine.utils;
 
 import lombok.RequiredArgsConstructor;
 import searchengine.config.SearchResultSettings;
+import searchengine.utils.postings.PagePostings;
+import searchengine.utils.postings.PositionList;
 
-import java.io.IOException;
 import java.util.*;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
+/**
+ * Сниппет из фрагментов текста вокруг слов запроса.
+ * Вхождения слов сортируются по смещению, фрагменты выбираются скользящим окном длиной snippetPartSize:
+ * сначала окно, покрывающее больше всего еще не показанных лемм, при равенстве - с большим числом вхождений.
+ * Выбранные фрагменты выводятся по порядку текста, выделение добавляется за один проход,
+ * поэтому время работы линейно по числу вхождений и длине сниппета.
+ * При прерывании потока (отмена задачи сниппета) сбор вхождений и выбор фрагментов прекращаются,
+ * а результат неполон.
+ */
 @RequiredArgsConstructor
 public class SnippetCreator {
     private final SearchResultSettings searchResultSettings;
+    private final LemmaParser lemmaParser;
 
-    public String getSnippetWithParts(String text, Set<String> lemmasSet, String snippet) throws IOException {
-        if (text == null || lemmasSet == null || snippet == null) {
-            return  "";
+    /**
+     * Сниппет по смещениям слов, сохраненным при индексации: для каждой леммы запроса - ее вхождения.
+     */
+    public String getSnippet(String text, List<int[]> lemmaOffsets) {
+        if (text == null || lemmaOffsets == null) {
+            return "";
         }
 
-        SnippetPreparatoryBuilder preparatoryBuilder = new SnippetPreparatoryBuilder(text, lemmasSet, snippet);
-        StringBuilder snippetBuilder = new StringBuilder(snippet);
-
-        fillSnippetStringBuilderToMaxLength(text, snippetBuilder, preparatoryBuilder);
+        HitList hits = new HitList(text, lemmaOffsets);
+        List<int[]> fragments = new FragmentSelector(hits, lemmaOffsets.size()).select();
+        return highlight(hits, fragments);
+    }
 
-        for (int i = preparatoryBuilder.searchWordIndex; i < preparatoryBuilder.searchWords.size(); i++) {
-            snippetBuilder.append(i == preparatoryBuilder.searchWordIndex ? "..." : ", ")
-                    .append("<b>" + preparatoryBuilder.searchWords.get(i) + "</b>");
+    /**
+     * Сниппет для страниц, проиндексированных без позиций: текст лемматизируется один раз.
+     */
+    public String getSnippet(String text, Set<String> lemmas) {
+        if (text == null || lemmas == null) {
+            return "";
         }
 
-        return snippetBuilder.toString();
+        PagePostings postings = lemmaParser.collectPostings(text);
+        List<int[]> lemmaOffsets = new ArrayList<>();
+        for (String lemma : lemmas) {
+            PositionList positionList = postings.getPositionList(lemma);
+            if (positionList != null) {
+                lemmaOffsets.add(positionList.getOffsets());
+            }
+        }
+        return getSnippet(text, lemmaOffsets);
     }
 
-    private void fillSnippetStringBuilderToMaxLength(String text, StringBuilder snippetBuilder
-    ,SnippetPreparatoryBuilder preparatoryBuilder) {
-        int textLength = text.length();
-        int startIndex = preparatoryBuilder.startIndex;
-        int endIndex =preparatoryBuilder.endIndex;
-
-        while(preparatoryBuilder.snippetLength < searchResultSettings.getSnippetMaxSize() && endIndex <= textLength
-                && preparatoryBuilder.searchWordIndex < preparatoryBuilder.searchWords.size()) {
-            addSnippetPartToStringBuilder(text.substring(startIndex, endIndex), snippetBuilder, preparatoryBuilder);
-
-            if (endIndex >= textLength || preparatoryBuilder.searchWordIndex >= preparatoryBuilder.searchWords.size()) {
-                break;
+    /**
+     * Выводит фрагменты [start, end) по порядку, пересекающиеся фрагменты сливаются,
+     * между остальными ставится многоточие.
+     */
+    private String highlight(HitList hits, List<int[]> fragments) {
+        StringBuilder builder = new StringBuilder();
+        int hit = 0;
+        int cursor = 0;
+        for (int[] fragment : fragments) {
+            if (fragment[1] <= cursor) {
+                continue;
             }
-
-            preparatoryBuilder.snippetLength = snippetBuilder.length();
-
-            startIndex = getSearchedWordStartIndex(text.substring(endIndex + 1,textLength)
-                    , preparatoryBuilder.searchWords.get(preparatoryBuilder.searchWordIndex));
-            while (startIndex == -1 && preparatoryBuilder.searchWordIndex < preparatoryBuilder.searchWords.size() -1) {
-                snippetBuilder.append("...<b>"
-                        + preparatoryBuilder.searchWords.get(preparatoryBuilder.searchWordIndex) + "</b>...");
-                preparatoryBuilder.searchWordIndex++;
-                startIndex = getSearchedWordStartIndex(text.substring(endIndex + 1,textLength)
-                        , preparatoryBuilder.searchWords.get(preparatoryBuilder.searchWordIndex));
+            if (fragment[0] > cursor && !builder.isEmpty()) {
+                builder.append("...");
             }
-
-            if (startIndex == -1) {
-                break;
+            cursor = Math.max(cursor, fragment[0]);
+            while (hit < hits.size && hits.offsets[hit] < fragment[1]) {
+                if (hits.offsets[hit] >= cursor) {
+                    builder.append(hits.text, cursor, hits.offsets[hit]).append("<b>")
+                            .append(hits.text, hits.offsets[hit], hits.ends[hit]).append("</b>");
+                    cursor = hits.ends[hit];
+                }
+                hit++;
+            }
+            if (cursor < fragment[1]) {
+                builder.append(hits.text, cursor, fragment[1]);
+                cursor = fragment[1];
             }
-
-            int snippetPartSize = searchResultSettings.getSnippetPartSize();
-            startIndex += endIndex + 1;
-            endIndex = textLength <= startIndex + snippetPartSize ? textLength
-                    : getTextPartIndex(text.substring(startIndex,textLength), snippetPartSize) + startIndex;
-        }
-    }
-
-    private void addSnippetPartToStringBuilder(String text, StringBuilder snippetBuilder
-            ,SnippetPreparatoryBuilder preparatoryBuilder){
-        String snippetPart = createSnippetPartByLemmas(text, preparatoryBuilder.allWords);
-        if (!snippetPart.isEmpty()) {
-            snippetBuilder.append(snippetBuilder.isEmpty() ? "" : "...")
-                    .append(snippetPart);
-        }
-        preparatoryBuilder.searchWordIndex++;
-    }
-
-    private int getSearchedWordStartIndex(String text, String searchWord) {
-        int startIndex = text.indexOf(searchWord);
-        while (startIndex != -1 && !isFullWord(text, searchWord, startIndex)) {
-            int textStartIndex = startIndex + searchWord.length();
-            startIndex = text.substring(textStartIndex).indexOf(searchWord) + textStartIndex;
-        }
-        return startIndex;
-    }
-
-    private boolean isFullWord(String text, String searchWord,int startIndex) {
-        boolean separateWordBefore = startIndex == 0? true : isSeparateChar(text, startIndex-1, startIndex);
-        int textStartIndex = startIndex + searchWord.length();
-        boolean separateWordAfter = startIndex+searchWord.length() == text.length() - 1? true
-                : isSeparateChar(text, textStartIndex, textStartIndex + 1);
-        return separateWordBefore && separateWordAfter;
-    }
-
-    private boolean isSeparateChar(String text, int startIndex, int endIndex) {
-        return Pattern.compile("[^a-zA-Zа-яА-ЯёЁ]").matcher(text.substring(startIndex, endIndex)).matches();
-    }
-
-    private String createSnippetPartByLemmas(String text, Set<String> matchingWords) {
-        String snippet = "";
-        if (!matchingWords.isEmpty()) {
-            snippet = designSnippetText(text, matchingWords);
         }
-        return snippet;
+        return builder.toString();
     }
 
-    private String designSnippetText(String text, Set<String> matchingWords) {
-        if (text == null || matchingWords == null || text.isEmpty()) {
-            return "";
-        }
-
-        StringBuilder textBuilder = new StringBuilder(text);
-        boolean isFoundWords = false;
-        for (String matchingWord : matchingWords) {
-            isFoundWords = replaceBuilderText(textBuilder, matchingWord, "<b>" + matchingWord + "</b>")
-                    || isFoundWords;
+    /**
+     * Вхождения слов запроса по возрастанию смещения: начало и конец слова и номер леммы.
+     */
+    private static class HitList {
+        private final String text;
+        private final int[] offsets;
+        private final int[] ends;
+        private final int[] lemmas;
+        private final int size;
+
+        HitList(String text, List<int[]> lemmaOffsets) {
+            this.text = text;
+            long[] keys = new long[lemmaOffsets.stream().mapToInt(o -> o.length).sum()];
+            int count = 0;
+            for (int lemma = 0; lemma < lemmaOffsets.size() && !Thread.currentThread().isInterrupted(); lemma++) {
+                for (int offset : lemmaOffsets.get(lemma)) {
+                    if (offset >= 0 && offset < text.length()) {
+                        keys[count++] = (long) offset << Integer.SIZE | lemma;
+                    }
+                }
+            }
+            Arrays.sort(keys, 0, count);
+            offsets = new int[count];
+            ends = new int[count];
+            lemmas = new int[count];
+            for (int i = 0; i < count; i++) {
+                offsets[i] = (int) (keys[i] >>> Integer.SIZE);
+                lemmas[i] = (int) keys[i];
+                ends[i] = TextTokenizer.findTokenBoundary(text, offsets[i] + 1, text.length());
+            }
+            size = count;
         }
-
-        return isFoundWords ? textBuilder.toString() : "";
     }
 
-    private int getTextPartIndex(String text, int startIndex) {
-        if (text == null) {
-            return 0;
-        }
-
-        int textLength =  text.length();
-        if (textLength == 0 || startIndex >= textLength) {
-            return textLength;
+    /**
+     * Выбор фрагментов, пока сниппет не достигнет snippetMaxSize или не кончатся вхождения.
+     * Вхождения, уже попавшие во фрагмент, разделяют окна следующих раундов.
+     */
+    private class FragmentSelector {
+        private final HitList hits;
+        private final boolean[] used;
+        private final boolean[] coveredLemmas;
+        private final int[] lemmaCounts;
+        private final int partSize = searchResultSettings.getSnippetPartSize();
+        private long bestScore;
+        private int bestStart;
+        private int bestEnd;
+
+        FragmentSelector(HitList hits, int lemmaCount) {
+            this.hits = hits;
+            this.used = new boolean[hits.size];
+            this.coveredLemmas = new boolean[lemmaCount];
+            this.lemmaCounts = new int[lemmaCount];
         }
 
-        int endIndex = startIndex;
-        for (; endIndex < textLength; endIndex++) {
-            if (Pattern.compile("\\s+").matcher(text.substring(endIndex, endIndex+1)).matches()) {
-                return endIndex;
+        List<int[]> select() {
+            List<int[]> fragments = new ArrayList<>();
+            int snippetLength = 0;
+            while (snippetLength < searchResultSettings.getSnippetMaxSize() && !Thread.currentThread().isInterrupted()
+                    && findBestWindow()) {
+                int[] fragment = takeFragment(bestStart, bestEnd);
+                fragments.add(fragment);
+                snippetLength += fragment[1] - fragment[0];
             }
-            endIndex++;
+            fragments.sort(Comparator.comparingInt(fragment -> fragment[0]));
+            return fragments;
         }
 
-        return endIndex;
-    }
-
-    public boolean replaceBuilderText(StringBuilder stringBuilder, String oldText, String newText) {
-        boolean result = false;
-        int index = stringBuilder.indexOf(oldText);
-        while (index != -1) {
-            int endIndex = index + oldText.length();
-            boolean isStartWordIndex = index == 0 || !Character.isLetterOrDigit(stringBuilder.charAt(index - 1));
-            boolean isEndWordIndex = endIndex == stringBuilder.length()
-                    || !Character.isLetterOrDigit(stringBuilder.charAt(endIndex));
-            if (isStartWordIndex && isEndWordIndex) {
-                stringBuilder.replace(index, endIndex, newText);
-                result = true;
+        private boolean findBestWindow() {
+            bestScore = -1;
+            int segmentStart = 0;
+            for (int i = 0; i <= hits.size; i++) {
+                if (i == hits.size || used[i]) {
+                    scanSegment(segmentStart, i);
+                    segmentStart = i + 1;
+                }
             }
-            index = stringBuilder.indexOf(oldText, index + newText.length());
+            return bestScore >= 0;
         }
-        return result;
-    }
 
-    private class SnippetPreparatoryBuilder {
-        private int snippetLength;
-        private int startIndex;
-        private int endIndex;
-        private int searchWordIndex;
-        private List<String> searchWords;
-        private Set<String> allWords;
-
-        public SnippetPreparatoryBuilder(String text, Set<String> lemmasSet, String snippet) throws IOException {
-            snippetLength = snippet.length();
-            int searchWordIndex = 0;
-            int textLength = text.length();
-
-            Map<String,Set<String>> matchingWords = LemmaParser.getInstance().getWordsByLemmas(text, lemmasSet);
-            allWords = matchingWords.values().stream().flatMap(Collection::stream)
-                    .collect(Collectors.toSet());
-            searchWords = new ArrayList<>();
-            for (Set<String> set : matchingWords.values()) {
-                if (!set.isEmpty()) {
-                    searchWords.add(set.iterator().next());
+        /**
+         * Окна из вхождений [from, to): для каждого левого вхождения правая граница только растет.
+         */
+        private void scanSegment(int from, int to) {
+            int right = from;
+            int newLemmas = 0;
+            for (int left = from; left < to; left++) {
+                while (right < to && (right == left || hits.ends[right] - hits.offsets[left] <= partSize)) {
+                    int lemma = hits.lemmas[right++];
+                    newLemmas += lemmaCounts[lemma]++ == 0 && !coveredLemmas[lemma] ? 1 : 0;
+                }
+                long score = (long) newLemmas << Integer.SIZE | (right - left);
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestStart = left;
+                    bestEnd = right;
                 }
+                int lemma = hits.lemmas[left];
+                newLemmas -= --lemmaCounts[lemma] == 0 && !coveredLemmas[lemma] ? 1 : 0;
             }
+        }
 
-            int snippetPartSize = searchResultSettings.getSnippetPartSize();
-            startIndex = getSearchedWordStartIndex(text, searchWords.get(searchWordIndex));
-            endIndex = textLength <= snippetPartSize ? textLength
-                    : getTextPartIndex(text.substring(startIndex,textLength), snippetPartSize) + startIndex;
+        /**
+         * Фрагмент от начала окна до границы слова после snippetPartSize символов;
+         * вхождения внутри него помечаются использованными.
+         */
+        private int[] takeFragment(int from, int to) {
+            int start = hits.offsets[from];
+            int end = Math.max(hits.ends[to - 1], TextTokenizer.findTokenBoundary(hits.text
+                    , Math.min(hits.text.length(), start + partSize), hits.text.length()));
+            for (int i = from; i < hits.size && hits.offsets[i] < end; i++) {
+                used[i] = true;
+                coveredLemmas[hits.lemmas[i]] = true;
+                end = Math.max(end, hits.ends[i]);
+            }
+            return new int[]{start, end};
         }
     }
 }
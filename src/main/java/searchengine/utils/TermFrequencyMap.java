@@ -0,0 +1,164 @@
+package searchengine.utils;
+
+import java.util.Arrays;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Частоты терминов: строка - счетчик int без упаковки значений.
+ * Открытая адресация с линейным пробированием, обход в порядке добавления.
+ * Каждый термин получает порядковый номер добавления, который не меняется при росте таблицы:
+ * по нему можно хранить связанные с термином данные в обычном массиве.
+ * Экземпляр можно переиспользовать после clear(): массивы сохраняются,
+ * если не выросли больше MAX_RETAINED_CAPACITY.
+ */
+public class TermFrequencyMap {
+    private static final int MIN_CAPACITY = 8;
+    private static final int MAX_RETAINED_CAPACITY = 1 << 16;
+    private String[] keys;
+    private int[] counts;
+    private int[] insertionOrder;
+    private int[] slotIndices;
+    private int size;
+
+    public TermFrequencyMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public TermFrequencyMap(int expectedSize) {
+        allocate(getCapacity(expectedSize));
+    }
+
+    /**
+     * Увеличивает счетчик на 1 и возвращает порядковый номер термина.
+     */
+    public int increment(String key) {
+        return add(key, 1);
+    }
+
+    public int add(String key, int delta) {
+        int slot = findSlot(key);
+        if (keys[slot] != null) {
+            counts[slot] += delta;
+            return slotIndices[slot];
+        }
+
+        int index = size;
+        keys[slot] = key;
+        counts[slot] = delta;
+        slotIndices[slot] = index;
+        insertionOrder[size++] = slot;
+        if (size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return index;
+    }
+
+    public void addAll(TermFrequencyMap other) {
+        other.forEach(this::add);
+    }
+
+    public int get(String key) {
+        int slot = findSlot(key);
+        return keys[slot] == null ? 0 : counts[slot];
+    }
+
+    /**
+     * Порядковый номер термина или -1, если его нет.
+     */
+    public int indexOf(String key) {
+        int slot = findSlot(key);
+        return keys[slot] == null ? -1 : slotIndices[slot];
+    }
+
+    public String getKey(int index) {
+        return keys[insertionOrder[index]];
+    }
+
+    public int getCount(int index) {
+        return counts[insertionOrder[index]];
+    }
+
+    public void forEach(ObjIntConsumer<String> consumer) {
+        for (int i = 0; i < size; i++) {
+            int slot = insertionOrder[i];
+            consumer.accept(keys[slot], counts[slot]);
+        }
+    }
+
+    public String[] getSortedKeys() {
+        String[] sortedKeys = new String[size];
+        for (int i = 0; i < size; i++) {
+            sortedKeys[i] = keys[insertionOrder[i]];
+        }
+        Arrays.sort(sortedKeys);
+        return sortedKeys;
+    }
+
+    public void clear() {
+        if (keys.length > MAX_RETAINED_CAPACITY) {
+            allocate(getCapacity(MIN_CAPACITY));
+            size = 0;
+            return;
+        }
+
+        for (int i = 0; i < size; i++) {
+            keys[insertionOrder[i]] = null;
+        }
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int findSlot(String key) {
+        int mask = keys.length - 1;
+        int slot = mix(key.hashCode()) & mask;
+        while (keys[slot] != null && !keys[slot].equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        String[] oldKeys = keys;
+        int[] oldCounts = counts;
+        int[] oldInsertionOrder = insertionOrder;
+        int oldSize = size;
+
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldSize; i++) {
+            int oldSlot = oldInsertionOrder[i];
+            int slot = findSlot(oldKeys[oldSlot]);
+            keys[slot] = oldKeys[oldSlot];
+            counts[slot] = oldCounts[oldSlot];
+            slotIndices[slot] = size;
+            insertionOrder[size++] = slot;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        counts = new int[capacity];
+        slotIndices = new int[capacity];
+        insertionOrder = new int[capacity / 2 + 1];
+    }
+
+    private static int getCapacity(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2 + 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int mix(int hash) {
+        int mixedHash = hash * 0x9E3779B9;
+        return mixedHash ^ (mixedHash >>> 16);
+    }
+}
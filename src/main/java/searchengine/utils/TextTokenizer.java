@@ -0,0 +1,90 @@
+package searchengine.utils;
+
+/**
+ * Разбивает текст на слова за один проход без регулярных выражений.
+ * Слово - непрерывная последовательность букв одного алфавита (кириллица а-я, ё или латиница a-z),
+ * все остальные символы, а также смена алфавита, разделяют слова.
+ * Слова передаются обработчику смещениями в исходном тексте, без создания строк.
+ */
+public final class TextTokenizer {
+    private static final char CYRILLIC_CASE_SHIFT = 'а' - 'А';
+    private static final char LATIN_CASE_SHIFT = 'a' - 'A';
+
+    private TextTokenizer() {
+    }
+
+    public enum Script {
+        CYRILLIC,
+        LATIN
+    }
+
+    @FunctionalInterface
+    public interface TokenConsumer {
+        void accept(Script script, int start, int end);
+    }
+
+    public static void tokenize(CharSequence text, TokenConsumer consumer) {
+        int length = text.length();
+        int tokenStart = 0;
+        Script tokenScript = null;
+        for (int i = 0; i < length; i++) {
+            Script script = getScript(text.charAt(i));
+            if (script == tokenScript) {
+                continue;
+            }
+
+            if (tokenScript != null) {
+                consumer.accept(tokenScript, tokenStart, i);
+            }
+            tokenScript = script;
+            tokenStart = i;
+        }
+
+        if (tokenScript != null) {
+            consumer.accept(tokenScript, tokenStart, length);
+        }
+    }
+
+    public static Script getScript(char c) {
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+            return Script.LATIN;
+        }
+        if ((c >= 'а' && c <= 'я') || (c >= 'А' && c <= 'Я') || c == 'ё' || c == 'Ё') {
+            return Script.CYRILLIC;
+        }
+        return null;
+    }
+
+    /**
+     * Сдвигает позицию вперед до ближайшей границы слов, чтобы разрезать текст, не разрывая слово.
+     */
+    public static int findTokenBoundary(CharSequence text, int index, int end) {
+        int boundary = index;
+        while (boundary > 0 && boundary < end && getScript(text.charAt(boundary)) != null
+                && getScript(text.charAt(boundary)) == getScript(text.charAt(boundary - 1))) {
+            boundary++;
+        }
+        return boundary;
+    }
+
+    /**
+     * Возвращает слово из text[start, end) в нижнем регистре.
+     */
+    public static String toLowerCase(CharSequence text, int start, int end) {
+        char[] word = new char[end - start];
+        for (int i = start; i < end; i++) {
+            word[i - start] = toLowerCase(text.charAt(i));
+        }
+        return new String(word);
+    }
+
+    private static char toLowerCase(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + LATIN_CASE_SHIFT);
+        }
+        if (c >= 'А' && c <= 'Я') {
+            return (char) (c + CYRILLIC_CASE_SHIFT);
+        }
+        return c == 'Ё' ? 'ё' : c;
+    }
+}
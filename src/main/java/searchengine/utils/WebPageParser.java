@@ -1,40 +1,53 @@
 package searchengine.utils;
 
 import lombok.RequiredArgsConstructor;
-import org.jsoup.Connection;
-import org.jsoup.HttpStatusException;
 import org.jsoup.Jsoup;
+import org.jsoup.UnsupportedMimeTypeException;
 import org.jsoup.nodes.Document;
 import org.jsoup.select.Elements;
-import searchengine.config.JsoupSettings;
 import searchengine.data.siteindexing.InputSiteIndexingLink;
 import searchengine.data.siteindexing.PageParsingInfo;
+import searchengine.data.siteindexing.PageValidators;
+import searchengine.utils.fetcher.FetchResult;
+import searchengine.utils.fetcher.PageFetcher;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.LinkedHashMap;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 public class WebPageParser {
+    public static final int HTTP_NOT_MODIFIED = 304;
     private final InputSiteIndexingLink inputLinks;
-    private final JsoupSettings jsoupSettings;
+    private final PageFetcher pageFetcher;
     private String domainLink;
 
-    public PageParsingInfo getPageInfo() throws IOException, InterruptedException {
+    public PageParsingInfo getPageInfo(PageValidators knownPage) throws IOException, InterruptedException {
+        return parsePage(pageFetcher.fetch(inputLinks.link(), knownPage));
+    }
+
+    public PageParsingInfo parsePage(FetchResult fetchResult) throws IOException {
         PageParsingInfo pageParsingInfo = new PageParsingInfo();
-        LinkedHashMap<String, Boolean> subLinks = new LinkedHashMap<>();
         domainLink = getDomainLink(inputLinks.link());
 
+        int status = fetchResult.getStatus();
         Document htmlPageDocument = null;
-        int status;
-        try {
-            Connection.Response response = getResponseByLink();
-            htmlPageDocument = response.parse();
-            status = response.statusCode();
-        } catch(HttpStatusException e) {
-            status = e.getStatusCode();
+        if (status >= 200 && status < 300) {
+            if (!fetchResult.isHtml()) {
+                throw new UnsupportedMimeTypeException("Unhandled content type", fetchResult.getContentType()
+                        , inputLinks.link());
+            }
+
+            setPageValidators(pageParsingInfo, fetchResult);
+            htmlPageDocument = Jsoup.parse(new ByteArrayInputStream(fetchResult.getBody())
+                    , fetchResult.getCharset(), fetchResult.getUrl());
         }
 
         pageParsingInfo.setStatus(status);
@@ -44,6 +57,19 @@ public class WebPageParser {
             return pageParsingInfo;
         }
 
+        setPageTextInfo(pageParsingInfo, htmlPageDocument);
+
+        pageParsingInfo.setSubLinks(getSubLinks(htmlPageDocument));
+        return pageParsingInfo;
+    }
+
+    public Set<String> getSubLinks(String html) {
+        domainLink = getDomainLink(inputLinks.link());
+        return getSubLinks(Jsoup.parse(html, inputLinks.link()));
+    }
+
+    private Set<String> getSubLinks(Document htmlPageDocument) {
+        LinkedHashMap<String, Boolean> subLinks = new LinkedHashMap<>();
         Elements linkElements = htmlPageDocument.select("a[href]");
 
         linkElements.forEach(l -> {
@@ -52,12 +78,21 @@ public class WebPageParser {
             checkSubLink(subLink.toString(), subLinks);
         });
 
-        pageParsingInfo.setSubLinks(subLinks.entrySet().stream().filter(l -> l.getValue())
+        return subLinks.entrySet().stream().filter(l -> l.getValue())
                 .collect(Collectors.toMap(l -> l.getKey(), l -> l.getValue()))
-                .keySet()
-        );
+                .keySet();
+    }
 
-        return pageParsingInfo;
+    private void setPageTextInfo(PageParsingInfo pageParsingInfo, Document htmlPageDocument) {
+        pageParsingInfo.setText(htmlPageDocument.body().text());
+        pageParsingInfo.setTitle(htmlPageDocument.title());
+        pageParsingInfo.setDescription(htmlPageDocument.select("meta[name=description]").attr("content"));
+    }
+
+    private void setPageValidators(PageParsingInfo pageParsingInfo, FetchResult fetchResult) {
+        pageParsingInfo.setEtag(fetchResult.getEtag());
+        pageParsingInfo.setLastModified(fetchResult.getLastModified());
+        pageParsingInfo.setContentHash(getContentHash(fetchResult.getBody()));
     }
 
     private boolean checkSubLink(String subLink, LinkedHashMap<String, Boolean> subLinks) {
@@ -82,11 +117,12 @@ public class WebPageParser {
         return true;
     }
 
-    private Connection.Response getResponseByLink() throws InterruptedException, IOException {
-        Thread.sleep(150);
-        return Jsoup.connect(inputLinks.link()).timeout(5000)
-                .userAgent(jsoupSettings.getUserAgent())
-                .referrer(jsoupSettings.getReferer()).execute();
+    private static String getContentHash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     public static StringBuilder closeLinkSlash(StringBuilder link) {
@@ -110,23 +146,4 @@ public class WebPageParser {
                 .append("([^\\?\\#\\.]*|[^\\?\\#]*\\.html[\\/]{0,1})$");
         return domainPageLinkMask.toString();
     }
-
-    public static String getTextFromHTML(String html) {
-        return Jsoup.parse(html).body().text();
-    }
-
-    public static String getTitleFromHTML(String html) {
-        return Jsoup.parse(html).title();
-    }
-
-    public static String getDescriptionFromHTML(String html) {
-        String description = "";
-        try {
-            description = Jsoup.parse(html).select("meta[name=description]")
-                    .get(0).attr("content");
-        } catch (Exception e) {
-        }
-
-        return description;
-    }
 }
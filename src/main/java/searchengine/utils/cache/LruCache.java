@@ -0,0 +1,147 @@
+package searchengine.utils.cache;
+
+import searchengine.data.statistics.CacheMetrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Ограниченный по размеру потокобезопасный LRU-кэш. Ключи распределены по сегментам
+ * с независимыми блокировками, каждый сегмент вытесняет свои давно не используемые записи.
+ * Если задано время жизни, устаревшая запись при чтении удаляется и считается промахом.
+ * Нулевой размер отключает кэширование.
+ */
+public class LruCache<K, V> {
+    private final List<Segment<K, CacheEntry<V>>> segments = new ArrayList<>();
+    private final int maxSize;
+    private final long timeToLive;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private static final int MAX_SEGMENT_COUNT = 16;
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    public LruCache(int maxSize) {
+        this(maxSize, 0);
+    }
+
+    /**
+     * @param timeToLive время жизни записи в мс, 0 - без ограничения
+     */
+    public LruCache(int maxSize, long timeToLive) {
+        this.maxSize = Math.max(0, maxSize);
+        this.timeToLive = timeToLive;
+        int segmentCount = Math.max(1, Math.min(MAX_SEGMENT_COUNT, this.maxSize / MIN_SEGMENT_SIZE));
+        int segmentSize = (this.maxSize + segmentCount - 1) / segmentCount;
+        for (int i = 0; i < segmentCount; i++) {
+            segments.add(new Segment<>(segmentSize));
+        }
+    }
+
+    public V get(K key) {
+        CacheEntry<V> entry = maxSize == 0 ? null : getSegment(key).getValue(key);
+        if (entry != null && entry.expireTime < System.currentTimeMillis()) {
+            getSegment(key).removeValue(key, entry);
+            entry = null;
+        }
+        (entry == null ? missCount : hitCount).incrementAndGet();
+        return entry == null ? null : entry.value;
+    }
+
+    public void put(K key, V value) {
+        if (maxSize > 0) {
+            long expireTime = timeToLive > 0 ? System.currentTimeMillis() + timeToLive : Long.MAX_VALUE;
+            getSegment(key).putValue(key, new CacheEntry<>(value, expireTime));
+        }
+    }
+
+    /**
+     * Возвращает значение из кэша или вычисляет и сохраняет его. Вычисление выполняется
+     * вне блокировки, поэтому одно значение может быть вычислено параллельно несколькими потоками.
+     */
+    public V computeIfAbsent(K key, Function<K, V> loader) {
+        V value = get(key);
+        if (value == null) {
+            value = loader.apply(key);
+            put(key, value);
+        }
+
+        return value;
+    }
+
+    public void clear() {
+        segments.forEach(Segment::clearValues);
+    }
+
+    public int size() {
+        return segments.stream().mapToInt(Segment::getSize).sum();
+    }
+
+    public CacheMetrics getMetrics(String name) {
+        long hits = hitCount.get();
+        long misses = missCount.get();
+
+        CacheMetrics metrics = new CacheMetrics();
+        metrics.setName(name);
+        metrics.setSize(size());
+        metrics.setMaxSize(maxSize);
+        metrics.setHitCount(hits);
+        metrics.setMissCount(misses);
+        metrics.setHitRate(hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+        return metrics;
+    }
+
+    private Segment<K, CacheEntry<V>> getSegment(K key) {
+        int hash = key.hashCode();
+        return segments.get(Math.floorMod(hash ^ (hash >>> 16), segments.size()));
+    }
+
+    private static class Segment<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        synchronized V getValue(K key) {
+            return get(key);
+        }
+
+        synchronized void putValue(K key, V value) {
+            put(key, value);
+        }
+
+        synchronized void removeValue(K key, V value) {
+            remove(key, value);
+        }
+
+        synchronized void clearValues() {
+            clear();
+        }
+
+        synchronized int getSize() {
+            return size();
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    private static class CacheEntry<V> {
+        private final V value;
+        private final long expireTime;
+
+        CacheEntry(V value, long expireTime) {
+            this.value = value;
+            this.expireTime = expireTime;
+        }
+    }
+}
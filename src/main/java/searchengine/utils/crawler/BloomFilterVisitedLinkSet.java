@@ -0,0 +1,97 @@
+package searchengine.utils.crawler;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Компактное множество посещенных ссылок для очень больших сайтов.
+ * Ложноположительные ответы возможны с заданной вероятностью, поэтому
+ * небольшая доля новых ссылок может быть пропущена.
+ */
+public class BloomFilterVisitedLinkSet implements VisitedLinkSet {
+    private final AtomicLongArray bits;
+    private final int bitCount;
+    private final int hashCount;
+
+    public BloomFilterVisitedLinkSet(int expectedLinkCount, double falsePositiveRate) {
+        double log2 = Math.log(2);
+        long optimalBitCount = (long) Math.ceil(-expectedLinkCount * Math.log(falsePositiveRate) / (log2 * log2));
+        bitCount = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(Long.SIZE, optimalBitCount));
+        hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedLinkCount * log2));
+        bits = new AtomicLongArray((bitCount + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    @Override
+    public boolean add(String link) {
+        long hash = getHash(link);
+        boolean isNewLink = false;
+        for (int i = 0; i < hashCount; i++) {
+            isNewLink |= setBit(getBitIndex(hash, i));
+        }
+        return isNewLink;
+    }
+
+    @Override
+    public boolean contains(String link) {
+        long hash = getHash(link);
+        for (int i = 0; i < hashCount; i++) {
+            int bitIndex = getBitIndex(hash, i);
+            if ((bits.get(bitIndex >>> 6) & (1L << bitIndex)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void writeTo(DataOutputStream output) throws IOException {
+        output.writeInt(bits.length());
+        for (int i = 0; i < bits.length(); i++) {
+            output.writeLong(bits.get(i));
+        }
+    }
+
+    @Override
+    public void readFrom(DataInputStream input) throws IOException {
+        int wordCount = input.readInt();
+        if (wordCount != bits.length()) {
+            throw new IOException("Bloom filter size mismatch: " + wordCount + " != " + bits.length());
+        }
+
+        for (int i = 0; i < wordCount; i++) {
+            bits.set(i, bits.get(i) | input.readLong());
+        }
+    }
+
+    private int getBitIndex(long hash, int hashNumber) {
+        int combinedHash = (int) hash + hashNumber * (int) (hash >>> 32);
+        return (combinedHash & Integer.MAX_VALUE) % bitCount;
+    }
+
+    private boolean setBit(int bitIndex) {
+        int wordIndex = bitIndex >>> 6;
+        long mask = 1L << bitIndex;
+        while (true) {
+            long word = bits.get(wordIndex);
+            if ((word & mask) != 0) {
+                return false;
+            }
+            if (bits.compareAndSet(wordIndex, word, word | mask)) {
+                return true;
+            }
+        }
+    }
+
+    private long getHash(String link) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < link.length(); i++) {
+            hash ^= link.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        return hash ^ (hash >>> 33);
+    }
+}
@@ -0,0 +1,40 @@
+package searchengine.utils.crawler;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ConcurrentVisitedLinkSet implements VisitedLinkSet {
+    private final Set<String> links = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public boolean add(String link) {
+        return links.add(link);
+    }
+
+    @Override
+    public boolean contains(String link) {
+        return links.contains(link);
+    }
+
+    @Override
+    public void writeTo(DataOutputStream output) throws IOException {
+        List<String> linksSnapshot = new ArrayList<>(links);
+        output.writeInt(linksSnapshot.size());
+        for (String link : linksSnapshot) {
+            output.writeUTF(link);
+        }
+    }
+
+    @Override
+    public void readFrom(DataInputStream input) throws IOException {
+        int linksCount = input.readInt();
+        for (int i = 0; i < linksCount; i++) {
+            links.add(input.readUTF());
+        }
+    }
+}
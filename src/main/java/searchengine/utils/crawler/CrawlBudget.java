@@ -0,0 +1,85 @@
+package searchengine.utils.crawler;
+
+import searchengine.config.Site;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Лимиты обхода сайта: глубина, количество страниц, объем загруженных данных и время.
+ * Нулевое значение лимита означает отсутствие ограничения.
+ * Страница резервируется до загрузки, поэтому лимит страниц не превышается
+ * при параллельной загрузке; лимит объема может быть превышен на уже начатые загрузки.
+ */
+public class CrawlBudget {
+    private final Site siteSettings;
+    private final long startTime = System.currentTimeMillis();
+    private final AtomicInteger reservedPages = new AtomicInteger();
+    private final AtomicLong downloadedBytes = new AtomicLong();
+    private final AtomicReference<String> stopReason = new AtomicReference<>();
+    private volatile boolean isDepthLimited;
+
+    public CrawlBudget(Site siteSettings) {
+        this.siteSettings = siteSettings;
+    }
+
+    public boolean isDepthAllowed(int depth) {
+        if (siteSettings.getMaxDepth() <= 0 || depth <= siteSettings.getMaxDepth()) {
+            return true;
+        }
+
+        isDepthLimited = true;
+        return false;
+    }
+
+    public boolean tryReservePage() {
+        if (isExhausted()) {
+            return false;
+        }
+
+        if (siteSettings.getMaxPages() > 0 && reservedPages.incrementAndGet() > siteSettings.getMaxPages()) {
+            reservedPages.decrementAndGet();
+            stop("Достигнут лимит количества страниц: " + siteSettings.getMaxPages());
+            return false;
+        }
+
+        return true;
+    }
+
+    public void releasePage() {
+        if (siteSettings.getMaxPages() > 0) {
+            reservedPages.decrementAndGet();
+        }
+    }
+
+    public void addDownloadedBytes(long bytes) {
+        if (siteSettings.getMaxBytes() > 0 && downloadedBytes.addAndGet(bytes) >= siteSettings.getMaxBytes()) {
+            stop("Достигнут лимит объема загруженных данных: " + siteSettings.getMaxBytes() + " байт");
+        }
+    }
+
+    public boolean isExhausted() {
+        if (siteSettings.getMaxCrawlTime() > 0
+                && System.currentTimeMillis() - startTime >= siteSettings.getMaxCrawlTime()) {
+            stop("Достигнут лимит времени обхода: " + siteSettings.getMaxCrawlTime() + " мс");
+        }
+
+        return stopReason.get() != null;
+    }
+
+    /**
+     * Причина остановки обхода по лимиту или null, если лимиты не срабатывали.
+     */
+    public String getStopReason() {
+        if (stopReason.get() != null) {
+            return stopReason.get();
+        }
+
+        return isDepthLimited ? "Достигнут лимит глубины обхода: " + siteSettings.getMaxDepth() : null;
+    }
+
+    private void stop(String reason) {
+        stopReason.compareAndSet(null, reason);
+    }
+}
@@ -0,0 +1,91 @@
+package searchengine.utils.crawler;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import searchengine.config.SitesList;
+import searchengine.data.siteindexing.FrontierLink;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+@Component
+@RequiredArgsConstructor
+public class CrawlCheckpointStore {
+    Logger logger = LoggerFactory.getLogger(CrawlCheckpointStore.class);
+    private final SitesList sites;
+    private final int CHECKPOINT_VERSION = 2;
+
+    /**
+     * Сохраняет состояние обхода сайта. Множество посещенных ссылок снимается раньше фронтира,
+     * а ссылки отмечаются посещенными и ставятся в очередь атомарно относительно снимка фронтира
+     * (CrawlFrontier.addUnvisited). Поэтому каждая сохраненная посещенная, но не проиндексированная
+     * ссылка попадает и в сохраненный фронтир.
+     */
+    public void save(String siteUrl, CrawlFrontier frontier, VisitedLinkSet visitedLinks) throws IOException {
+        Path checkpointPath = getCheckpointPath(siteUrl);
+        Files.createDirectories(checkpointPath.getParent());
+        Path tempPath = checkpointPath.resolveSibling(checkpointPath.getFileName() + ".tmp");
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(tempPath))))) {
+            output.writeInt(CHECKPOINT_VERSION);
+            output.writeUTF(visitedLinks.getClass().getSimpleName());
+            visitedLinks.writeTo(output);
+            writeFrontier(output, frontier.getSnapshot());
+        }
+
+        Files.move(tempPath, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void load(String siteUrl, CrawlFrontier frontier, VisitedLinkSet visitedLinks) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(getCheckpointPath(siteUrl)))))) {
+            if (input.readInt() != CHECKPOINT_VERSION
+                    || !input.readUTF().equals(visitedLinks.getClass().getSimpleName())) {
+                throw new IOException("Incompatible checkpoint for " + siteUrl);
+            }
+
+            visitedLinks.readFrom(input);
+            int linksCount = input.readInt();
+            for (int i = 0; i < linksCount; i++) {
+                frontier.add(new FrontierLink(input.readUTF(), input.readInt(), input.readDouble()));
+            }
+        }
+    }
+
+    public boolean exists(String siteUrl) {
+        return Files.exists(getCheckpointPath(siteUrl));
+    }
+
+    public void delete(String siteUrl) {
+        try {
+            Files.deleteIfExists(getCheckpointPath(siteUrl));
+        } catch (IOException e) {
+            logger.error("Checkpoint delete error: " + e.getMessage());
+        }
+    }
+
+    private void writeFrontier(DataOutputStream output, List<FrontierLink> links) throws IOException {
+        output.writeInt(links.size());
+        for (FrontierLink link : links) {
+            output.writeUTF(link.getLink());
+            output.writeInt(link.getDepth());
+            output.writeDouble(link.getPriority());
+        }
+    }
+
+    private Path getCheckpointPath(String siteUrl) {
+        return Path.of(sites.getCheckpointDirectory(), siteUrl.replaceAll("[^a-zA-Z0-9]+", "_") + ".checkpoint");
+    }
+}
@@ -0,0 +1,127 @@
+package searchengine.utils.crawler;
+
+import searchengine.data.siteindexing.FrontierLink;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Фронтир обхода: ссылки выдаются по убыванию приоритета, затем по возрастанию глубины,
+ * а при равенстве - в порядке добавления.
+ */
+public class CrawlFrontier {
+    private static final Comparator<QueuedLink> LINK_ORDER = Comparator
+            .comparingDouble((QueuedLink l) -> -l.link.getPriority())
+            .thenComparingInt(l -> l.link.getDepth())
+            .thenComparingLong(l -> l.sequence);
+    private final Queue<QueuedLink> queue = new PriorityBlockingQueue<>(64, LINK_ORDER);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Set<FrontierLink> inFlightLinks = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ReadWriteLock snapshotLock = new ReentrantReadWriteLock();
+
+    public void add(FrontierLink link) {
+        snapshotLock.readLock().lock();
+        try {
+            pendingCount.incrementAndGet();
+            queue.add(new QueuedLink(link, sequence.getAndIncrement()));
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Добавляет ссылку, если ее путь еще не отмечен в visitedLinks. Отметка и добавление выполняются
+     * под одной блокировкой со снимком фронтира: посещенная ссылка, которая попала в сохраненное
+     * множество посещенных, к моменту снимка фронтира уже находится в очереди.
+     */
+    public boolean addUnvisited(FrontierLink link, String path, VisitedLinkSet visitedLinks) {
+        snapshotLock.readLock().lock();
+        try {
+            if (!visitedLinks.add(path)) {
+                return false;
+            }
+
+            pendingCount.incrementAndGet();
+            queue.add(new QueuedLink(link, sequence.getAndIncrement()));
+            return true;
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    public FrontierLink poll() {
+        snapshotLock.readLock().lock();
+        try {
+            QueuedLink queuedLink = queue.poll();
+            if (queuedLink == null) {
+                return null;
+            }
+
+            inFlightLinks.add(queuedLink.link);
+            return queuedLink.link;
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Отмечает окончание обработки ссылки, полученной через poll.
+     * Ссылка считается ожидающей, пока не обработана, чтобы фронтир не
+     * закончился раньше, чем будут добавлены найденные на странице ссылки.
+     */
+    public void complete(FrontierLink link) {
+        snapshotLock.readLock().lock();
+        try {
+            inFlightLinks.remove(link);
+            pendingCount.decrementAndGet();
+        } finally {
+            snapshotLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает все необработанные ссылки: из очереди и находящиеся в обработке.
+     */
+    public List<FrontierLink> getSnapshot() {
+        snapshotLock.writeLock().lock();
+        try {
+            List<FrontierLink> links = new ArrayList<>(inFlightLinks);
+            queue.forEach(l -> links.add(l.link));
+            return links;
+        } finally {
+            snapshotLock.writeLock().unlock();
+        }
+    }
+
+    public boolean isExhausted() {
+        return pendingCount.get() == 0;
+    }
+
+    public boolean hasQueuedLinks() {
+        return !queue.isEmpty();
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    private static class QueuedLink {
+        private final FrontierLink link;
+        private final long sequence;
+
+        QueuedLink(FrontierLink link, long sequence) {
+            this.link = link;
+            this.sequence = sequence;
+        }
+    }
+}
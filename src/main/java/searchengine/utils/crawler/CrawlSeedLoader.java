@@ -0,0 +1,112 @@
+package searchengine.utils.crawler;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import searchengine.config.JsoupSettings;
+import searchengine.data.siteindexing.FrontierLink;
+import searchengine.data.siteindexing.SitemapEntry;
+import searchengine.utils.WebPageParser;
+import searchengine.utils.fetcher.FetchResult;
+import searchengine.utils.fetcher.PageFetcher;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Загружает robots.txt и sitemap сайта перед началом обхода.
+ * Ссылки из sitemap получают приоритет по priority и свежести lastmod.
+ */
+@Component
+@RequiredArgsConstructor
+public class CrawlSeedLoader {
+    Logger logger = LoggerFactory.getLogger(CrawlSeedLoader.class);
+    private final PageFetcher pageFetcher;
+    private final JsoupSettings jsoupSettings;
+    private final int MAX_SITEMAP_COUNT = 50;
+    private final int MAX_SITEMAP_LINK_COUNT = 50000;
+    private final int SITEMAP_LINK_DEPTH = 1;
+    private final double FRESHNESS_WEIGHT = 0.5;
+    private final double FRESHNESS_PERIOD_DAYS = 30;
+
+    public RobotsRules loadRobotsRules(String siteUrl) throws InterruptedException {
+        String robotsLink = WebPageParser.getDomainLink(siteUrl) + "/robots.txt";
+        try {
+            FetchResult fetchResult = pageFetcher.fetch(robotsLink, null);
+            if (fetchResult.getStatus() != 200 || fetchResult.getBody().length == 0) {
+                return RobotsRules.allowAll();
+            }
+
+            Charset charset = fetchResult.getCharset() != null && Charset.isSupported(fetchResult.getCharset())
+                    ? Charset.forName(fetchResult.getCharset()) : StandardCharsets.UTF_8;
+            return RobotsRules.parse(new String(fetchResult.getBody(), charset), jsoupSettings.getUserAgent());
+        } catch (IOException e) {
+            logger.warn("Robots.txt load error: " + robotsLink + ": " + e.getMessage());
+            return RobotsRules.allowAll();
+        }
+    }
+
+    /**
+     * Загружает ссылки из sitemap, указанных в robots.txt (или из /sitemap.xml),
+     * с обходом индексов sitemap. Между запросами выдерживается задержка сайта.
+     */
+    public List<FrontierLink> loadSitemapLinks(String siteUrl, List<String> sitemapLinks, long crawlDelay)
+            throws InterruptedException {
+        Deque<String> sitemapQueue = new ArrayDeque<>(sitemapLinks.isEmpty()
+                ? List.of(WebPageParser.getDomainLink(siteUrl) + "/sitemap.xml") : sitemapLinks);
+        Set<String> loadedSitemaps = new HashSet<>();
+        List<FrontierLink> links = new ArrayList<>();
+        Instant now = Instant.now();
+
+        while (!sitemapQueue.isEmpty() && loadedSitemaps.size() < MAX_SITEMAP_COUNT
+                && links.size() < MAX_SITEMAP_LINK_COUNT) {
+            String sitemapLink = sitemapQueue.poll();
+            if (!loadedSitemaps.add(sitemapLink)) {
+                continue;
+            }
+
+            SitemapParser sitemapParser = fetchSitemap(sitemapLink);
+            if (sitemapParser != null) {
+                sitemapQueue.addAll(sitemapParser.getChildSitemaps());
+                sitemapParser.getEntries().forEach(e -> links.add(new FrontierLink(e.getLink(), SITEMAP_LINK_DEPTH
+                        , getPriority(e, now))));
+            }
+            Thread.sleep(crawlDelay);
+        }
+
+        return links.size() > MAX_SITEMAP_LINK_COUNT ? links.subList(0, MAX_SITEMAP_LINK_COUNT) : links;
+    }
+
+    private SitemapParser fetchSitemap(String sitemapLink) throws InterruptedException {
+        try {
+            FetchResult fetchResult = pageFetcher.fetch(sitemapLink, null);
+            if (fetchResult.getStatus() != 200 || fetchResult.getBody().length == 0) {
+                return null;
+            }
+
+            return new SitemapParser(fetchResult.getBody(), fetchResult.getCharset(), fetchResult.getUrl());
+        } catch (IOException e) {
+            logger.warn("Sitemap load error: " + sitemapLink + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private double getPriority(SitemapEntry entry, Instant now) {
+        if (entry.getLastModified() == null) {
+            return entry.getPriority();
+        }
+
+        double ageDays = Math.max(0, Duration.between(entry.getLastModified(), now).toHours() / 24.0);
+        return entry.getPriority() + FRESHNESS_WEIGHT / (1 + ageDays / FRESHNESS_PERIOD_DAYS);
+    }
+}
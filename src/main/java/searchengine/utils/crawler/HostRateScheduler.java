@@ -0,0 +1,41 @@
+package searchengine.utils.crawler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class HostRateScheduler {
+    private final Map<String, Long> nextFetchTimes = new ConcurrentHashMap<>();
+
+    /**
+     * Резервирует ближайший разрешенный запрос к хосту и возвращает резерв - время, раньше которого
+     * следующий запрос запрещен. Если хост еще не готов, возвращает 0, не блокируя поток,
+     * чтобы он мог обработать другой хост.
+     */
+    public long tryAcquire(String host, long crawlDelay) {
+        long now = System.currentTimeMillis();
+        long[] reservation = {0};
+
+        nextFetchTimes.compute(host, (h, nextFetchTime) -> {
+            if (nextFetchTime != null && nextFetchTime > now) {
+                return nextFetchTime;
+            }
+            reservation[0] = now + crawlDelay;
+            return reservation[0];
+        });
+
+        return reservation[0];
+    }
+
+    /**
+     * Отменяет резерв, по которому запрос не выполнялся: хост сразу снова готов.
+     * Резерв, уже замененный другим потоком, не затрагивается.
+     */
+    public void cancel(String host, long reservation) {
+        nextFetchTimes.remove(host, reservation);
+    }
+
+    public long getWaitTime(String host) {
+        Long nextFetchTime = nextFetchTimes.get(host);
+        return nextFetchTime == null ? 0 : Math.max(0, nextFetchTime - System.currentTimeMillis());
+    }
+}
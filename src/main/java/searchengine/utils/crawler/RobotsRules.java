@@ -0,0 +1,193 @@
+package searchengine.utils.crawler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Правила robots.txt для user-agent индексатора. Используется группа с самым длинным
+ * совпавшим именем агента, иначе группа "*". Для пути выбирается правило Allow/Disallow
+ * с самым длинным шаблоном, при равной длине побеждает Allow.
+ * Шаблоны поддерживают '*' и '$' в конце.
+ */
+public class RobotsRules {
+    private final List<Rule> rules = new ArrayList<>();
+    private final List<String> sitemaps = new ArrayList<>();
+    private long crawlDelay = -1;
+    private static final String ANY_AGENT = "*";
+
+    public static RobotsRules allowAll() {
+        return new RobotsRules();
+    }
+
+    public static RobotsRules parse(String content, String userAgent) {
+        RobotsRules robotsRules = new RobotsRules();
+        String agent = userAgent == null ? "" : userAgent.toLowerCase(Locale.ROOT);
+        List<Group> groups = new ArrayList<>();
+        Group currentGroup = null;
+        boolean isGroupHeader = false;
+
+        for (String line : content.split("\\r?\\n|\\r")) {
+            int commentStart = line.indexOf('#');
+            String directive = commentStart >= 0 ? line.substring(0, commentStart) : line;
+            int separator = directive.indexOf(':');
+            if (separator < 0) {
+                continue;
+            }
+
+            String name = directive.substring(0, separator).trim().toLowerCase(Locale.ROOT);
+            String value = directive.substring(separator + 1).trim();
+            if (name.equals("user-agent")) {
+                currentGroup = isGroupHeader ? currentGroup : new Group();
+                if (!isGroupHeader) {
+                    groups.add(currentGroup);
+                }
+                currentGroup.agents.add(value.toLowerCase(Locale.ROOT));
+                isGroupHeader = true;
+                continue;
+            }
+
+            isGroupHeader = false;
+            robotsRules.addDirective(currentGroup, name, value);
+        }
+
+        robotsRules.applyGroup(selectGroup(groups, agent));
+        return robotsRules;
+    }
+
+    public boolean isAllowed(String path) {
+        Rule matchedRule = null;
+        for (Rule rule : rules) {
+            if (!matches(rule.pattern, path)) {
+                continue;
+            }
+
+            if (matchedRule == null || rule.pattern.length() > matchedRule.pattern.length()
+                    || (rule.pattern.length() == matchedRule.pattern.length() && rule.isAllow)) {
+                matchedRule = rule;
+            }
+        }
+
+        return matchedRule == null || matchedRule.isAllow;
+    }
+
+    /**
+     * Задержка между запросами в миллисекундах или -1, если Crawl-delay не указан.
+     */
+    public long getCrawlDelay() {
+        return crawlDelay;
+    }
+
+    public List<String> getSitemaps() {
+        return sitemaps;
+    }
+
+    private void addDirective(Group group, String name, String value) {
+        if (name.equals("sitemap")) {
+            if (!value.isEmpty()) {
+                sitemaps.add(value);
+            }
+            return;
+        }
+
+        if (group == null) {
+            return;
+        }
+
+        if (name.equals("allow") || name.equals("disallow")) {
+            // пустой Disallow разрешает все и правилом не является
+            if (!value.isEmpty()) {
+                group.rules.add(new Rule(value, name.equals("allow")));
+            }
+        } else if (name.equals("crawl-delay")) {
+            group.crawlDelay = parseCrawlDelay(value);
+        }
+    }
+
+    private void applyGroup(Group group) {
+        if (group == null) {
+            return;
+        }
+
+        rules.addAll(group.rules);
+        crawlDelay = group.crawlDelay;
+    }
+
+    private static Group selectGroup(List<Group> groups, String agent) {
+        Group selectedGroup = null;
+        int selectedLength = -1;
+        for (Group group : groups) {
+            for (String groupAgent : group.agents) {
+                int length = groupAgent.equals(ANY_AGENT) ? 0
+                        : (!groupAgent.isEmpty() && agent.contains(groupAgent) ? groupAgent.length() : -1);
+                if (length > selectedLength) {
+                    selectedGroup = group;
+                    selectedLength = length;
+                }
+            }
+        }
+
+        return selectedGroup;
+    }
+
+    private static long parseCrawlDelay(String value) {
+        try {
+            return Math.round(Double.parseDouble(value) * 1000);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Сопоставление пути с шаблоном: '*' - любая последовательность символов,
+     * '$' в конце - конец пути, без него шаблон сравнивается с началом пути.
+     */
+    private static boolean matches(String pattern, String path) {
+        boolean isAnchored = pattern.endsWith("$");
+        int patternLength = isAnchored ? pattern.length() - 1 : pattern.length();
+        int patternIndex = 0;
+        int pathIndex = 0;
+        int starIndex = -1;
+        int starPathIndex = 0;
+
+        while (pathIndex < path.length()) {
+            if (patternIndex == patternLength && !isAnchored) {
+                return true;
+            }
+
+            if (patternIndex < patternLength && pattern.charAt(patternIndex) == '*') {
+                starIndex = patternIndex++;
+                starPathIndex = pathIndex;
+            } else if (patternIndex < patternLength && pattern.charAt(patternIndex) == path.charAt(pathIndex)) {
+                patternIndex++;
+                pathIndex++;
+            } else if (starIndex >= 0) {
+                patternIndex = starIndex + 1;
+                pathIndex = ++starPathIndex;
+            } else {
+                return false;
+            }
+        }
+
+        while (patternIndex < patternLength && pattern.charAt(patternIndex) == '*') {
+            patternIndex++;
+        }
+        return patternIndex == patternLength;
+    }
+
+    private static class Group {
+        private final List<String> agents = new ArrayList<>();
+        private final List<Rule> rules = new ArrayList<>();
+        private long crawlDelay = -1;
+    }
+
+    private static class Rule {
+        private final String pattern;
+        private final boolean isAllow;
+
+        Rule(String pattern, boolean isAllow) {
+            this.pattern = pattern;
+            this.isAllow = isAllow;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package searchengine.utils.crawler;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import searchengine.data.siteindexing.SitemapEntry;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Разбор sitemap.xml: список страниц (urlset) или индекс других sitemap (sitemapindex).
+ */
+public class SitemapParser {
+    private final Document document;
+    private static final double DEFAULT_PRIORITY = 0.5;
+
+    public SitemapParser(byte[] content, String charset, String sitemapUrl) throws IOException {
+        this.document = Jsoup.parse(new ByteArrayInputStream(content), charset, sitemapUrl, Parser.xmlParser());
+    }
+
+    public List<String> getChildSitemaps() {
+        return document.select("sitemapindex > sitemap > loc").eachText();
+    }
+
+    public List<SitemapEntry> getEntries() {
+        return document.select("urlset > url").stream()
+                .map(this::createEntry)
+                .filter(e -> !e.getLink().isEmpty())
+                .toList();
+    }
+
+    private SitemapEntry createEntry(Element url) {
+        return new SitemapEntry(getChildText(url, "loc"), parseLastModified(getChildText(url, "lastmod"))
+                , parsePriority(getChildText(url, "priority")));
+    }
+
+    private String getChildText(Element element, String tagName) {
+        Element child = element.selectFirst("> " + tagName);
+        return child == null ? "" : child.text().trim();
+    }
+
+    private static Instant parseLastModified(String lastModified) {
+        if (lastModified.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return lastModified.length() == 10
+                    ? LocalDate.parse(lastModified).atStartOfDay(ZoneOffset.UTC).toInstant()
+                    : OffsetDateTime.parse(lastModified).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static double parsePriority(String priority) {
+        try {
+            return priority.isEmpty() ? DEFAULT_PRIORITY : Math.max(0, Math.min(1, Double.parseDouble(priority)));
+        } catch (NumberFormatException e) {
+            return DEFAULT_PRIORITY;
+        }
+    }
+}
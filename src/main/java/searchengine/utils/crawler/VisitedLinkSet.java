@@ -0,0 +1,19 @@
+package searchengine.utils.crawler;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public interface VisitedLinkSet {
+    /**
+     * Добавляет ссылку в множество посещенных.
+     * Возвращает true, если ссылка раньше не встречалась.
+     */
+    boolean add(String link);
+
+    boolean contains(String link);
+
+    void writeTo(DataOutputStream output) throws IOException;
+
+    void readFrom(DataInputStream input) throws IOException;
+}
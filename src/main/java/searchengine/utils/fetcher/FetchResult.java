@@ -0,0 +1,40 @@
+package searchengine.utils.fetcher;
+
+import lombok.Data;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Data
+public class FetchResult {
+    private static final Pattern CHARSET_PATTERN = Pattern.compile("(?i)\\bcharset=\\s*\"?([^\\s;\"]*)");
+
+    private int status;
+    private String url;
+    private String contentType;
+    private byte[] body;
+    private String etag;
+    private String lastModified;
+
+    public boolean isHtml() {
+        return isHtmlContentType(contentType);
+    }
+
+    public String getCharset() {
+        if (contentType == null) {
+            return null;
+        }
+
+        Matcher matcher = CHARSET_PATTERN.matcher(contentType);
+        return matcher.find() && !matcher.group(1).isEmpty() ? matcher.group(1) : null;
+    }
+
+    public static boolean isHtmlContentType(String contentType) {
+        if (contentType == null) {
+            return true;
+        }
+
+        String mimeType = contentType.toLowerCase();
+        return mimeType.startsWith("text/") || mimeType.contains("xml");
+    }
+}
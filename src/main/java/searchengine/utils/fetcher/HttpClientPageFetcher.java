@@ -0,0 +1,201 @@
+package searchengine.utils.fetcher;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import searchengine.config.FetcherSettings;
+import searchengine.config.JsoupSettings;
+import searchengine.data.siteindexing.PageValidators;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Загрузчик страниц на общем HttpClient: соединения с хостами переиспользуются
+ * между запросами всех потоков обхода, для HTTP/2 запросы мультиплексируются.
+ */
+@Component
+@ConditionalOnProperty(prefix = "fetcher-settings", name = "type", havingValue = "http-client", matchIfMissing = true)
+public class HttpClientPageFetcher implements PageFetcher {
+    private final JsoupSettings jsoupSettings;
+    private final FetcherSettings fetcherSettings;
+    private final HttpClient httpClient;
+
+    public HttpClientPageFetcher(JsoupSettings jsoupSettings, FetcherSettings fetcherSettings) {
+        this.jsoupSettings = jsoupSettings;
+        this.fetcherSettings = fetcherSettings;
+        this.httpClient = HttpClient.newBuilder()
+                .version(fetcherSettings.isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(fetcherSettings.getTimeout()))
+                .build();
+    }
+
+    @Override
+    public FetchResult fetch(String link, PageValidators knownPage) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = httpClient.send(createRequest(link, knownPage), this::createBodySubscriber);
+        HttpHeaders headers = response.headers();
+
+        FetchResult fetchResult = new FetchResult();
+        fetchResult.setStatus(response.statusCode());
+        fetchResult.setUrl(response.uri().toString());
+        fetchResult.setContentType(headers.firstValue("Content-Type").orElse(null));
+        fetchResult.setEtag(headers.firstValue("ETag").orElse(null));
+        fetchResult.setLastModified(headers.firstValue("Last-Modified").orElse(null));
+        fetchResult.setBody(decodeBody(response.body(), headers.firstValue("Content-Encoding").orElse("")));
+        return fetchResult;
+    }
+
+    private HttpRequest createRequest(String link, PageValidators knownPage) throws IOException {
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder(toUri(link))
+                .timeout(Duration.ofMillis(fetcherSettings.getTimeout()))
+                .header("User-Agent", jsoupSettings.getUserAgent())
+                .header("Referer", jsoupSettings.getReferer())
+                .header("Accept", "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8")
+                .header("Accept-Encoding", "gzip, deflate");
+
+        if (knownPage != null && knownPage.getEtag() != null) {
+            requestBuilder.header("If-None-Match", knownPage.getEtag());
+        }
+        if (knownPage != null && knownPage.getLastModified() != null) {
+            requestBuilder.header("If-Modified-Since", knownPage.getLastModified());
+        }
+
+        return requestBuilder.GET().build();
+    }
+
+    private URI toUri(String link) throws IOException {
+        try {
+            return URI.create(link);
+        } catch (IllegalArgumentException e) {
+            URL url = new URL(link);
+            try {
+                return new URI(url.getProtocol(), url.getUserInfo(), url.getHost(), url.getPort()
+                        , url.getPath(), url.getQuery(), url.getRef());
+            } catch (URISyntaxException ex) {
+                throw new IOException("Wrong link: " + link, ex);
+            }
+        }
+    }
+
+    private HttpResponse.BodySubscriber<byte[]> createBodySubscriber(HttpResponse.ResponseInfo responseInfo) {
+        String contentType = responseInfo.headers().firstValue("Content-Type").orElse(null);
+        return new LimitedBodySubscriber(FetchResult.isHtmlContentType(contentType)
+                ? fetcherSettings.getMaxBodySize() : 0);
+    }
+
+    private byte[] decodeBody(byte[] body, String contentEncoding) throws IOException {
+        boolean isGzip = contentEncoding.equalsIgnoreCase("gzip");
+        if (body.length == 0 || !(isGzip || contentEncoding.equalsIgnoreCase("deflate"))) {
+            return body;
+        }
+
+        ByteArrayOutputStream decodedBody = new ByteArrayOutputStream();
+        InputStream bodyStream = new ByteArrayInputStream(body);
+        // многие серверы отдают deflate без заголовка zlib
+        Inflater rawInflater = isGzip || hasZlibHeader(body) ? null : new Inflater(true);
+        try (InputStream input = isGzip ? new GZIPInputStream(bodyStream) : rawInflater == null
+                ? new InflaterInputStream(bodyStream) : new InflaterInputStream(bodyStream, rawInflater)) {
+            byte[] buffer = new byte[8192];
+            int readCount;
+            int maxBodySize = fetcherSettings.getMaxBodySize();
+            while (decodedBody.size() < maxBodySize && (readCount = input.read(buffer)) != -1) {
+                decodedBody.write(buffer, 0, Math.min(readCount, maxBodySize - decodedBody.size()));
+            }
+        } catch (EOFException | ZipException e) {
+            // тело было обрезано по maxBodySize или повреждено, используется уже распакованная часть
+        } finally {
+            if (rawInflater != null) {
+                rawInflater.end();
+            }
+        }
+
+        return decodedBody.toByteArray();
+    }
+
+    /**
+     * Заголовок zlib: метод сжатия 8 в младших битах первого байта, два байта вместе кратны 31.
+     */
+    private static boolean hasZlibHeader(byte[] body) {
+        return body.length >= 2 && (body[0] & 0x0F) == 8 && (((body[0] & 0xFF) << 8) | (body[1] & 0xFF)) % 31 == 0;
+    }
+
+    /**
+     * Читает тело ответа не более maxBodySize байт. При достижении лимита
+     * подписка отменяется, и оставшаяся часть тела не загружается.
+     */
+    private static class LimitedBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+        private final int maxBodySize;
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        private Flow.Subscription subscription;
+
+        public LimitedBodySubscriber(int maxBodySize) {
+            this.maxBodySize = maxBodySize;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (maxBodySize <= 0) {
+                subscription.cancel();
+                result.complete(new byte[0]);
+                return;
+            }
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            if (result.isDone()) {
+                return;
+            }
+
+            for (ByteBuffer buffer : buffers) {
+                int length = Math.min(buffer.remaining(), maxBodySize - body.size());
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                body.write(bytes, 0, length);
+            }
+
+            if (body.size() >= maxBodySize) {
+                subscription.cancel();
+                result.complete(body.toByteArray());
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(body.toByteArray());
+        }
+
+        @Override
+        public CompletionStage<byte[]> getBody() {
+            return result;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package searchengine.utils.fetcher;
+
+import lombok.RequiredArgsConstructor;
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import searchengine.config.FetcherSettings;
+import searchengine.config.JsoupSettings;
+import searchengine.data.siteindexing.PageValidators;
+
+import java.io.IOException;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "fetcher-settings", name = "type", havingValue = "jsoup")
+public class JsoupPageFetcher implements PageFetcher {
+    private final JsoupSettings jsoupSettings;
+    private final FetcherSettings fetcherSettings;
+
+    @Override
+    public FetchResult fetch(String link, PageValidators knownPage) throws IOException {
+        Connection connection = Jsoup.connect(link).timeout(fetcherSettings.getTimeout())
+                .maxBodySize(fetcherSettings.getMaxBodySize())
+                .ignoreHttpErrors(true)
+                .ignoreContentType(true)
+                .userAgent(jsoupSettings.getUserAgent())
+                .referrer(jsoupSettings.getReferer());
+
+        if (knownPage != null && knownPage.getEtag() != null) {
+            connection.header("If-None-Match", knownPage.getEtag());
+        }
+        if (knownPage != null && knownPage.getLastModified() != null) {
+            connection.header("If-Modified-Since", knownPage.getLastModified());
+        }
+
+        Connection.Response response = connection.execute();
+        FetchResult fetchResult = new FetchResult();
+        fetchResult.setStatus(response.statusCode());
+        fetchResult.setUrl(response.url().toString());
+        fetchResult.setContentType(response.contentType());
+        fetchResult.setEtag(response.header("ETag"));
+        fetchResult.setLastModified(response.header("Last-Modified"));
+        fetchResult.setBody(fetchResult.isHtml() ? response.bodyAsBytes() : new byte[0]);
+        return fetchResult;
+    }
+}
@@ -0,0 +1,13 @@
+package searchengine.utils.fetcher;
+
+import searchengine.data.siteindexing.PageValidators;
+
+import java.io.IOException;
+
+public interface PageFetcher {
+    /**
+     * Загружает страницу. Если известны валидаторы страницы, запрос
+     * выполняется как условный (If-None-Match / If-Modified-Since).
+     */
+    FetchResult fetch(String link, PageValidators knownPage) throws IOException, InterruptedException;
+}
@@ -0,0 +1,115 @@
+package searchengine.utils.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import searchengine.data.statistics.IndexingStageMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Стадия конвейера индексации: ограниченная очередь и собственный пул потоков.
+ * Заполненная очередь блокирует предыдущую стадию, так что медленная стадия
+ * притормаживает весь конвейер, а не копит элементы в памяти.
+ * Потоки забирают элементы пачками до batchSize, ожидая добора пачки не дольше batchWaitTime.
+ */
+public class PipelineStage<T> {
+    Logger logger = LoggerFactory.getLogger(PipelineStage.class);
+    private final String name;
+    private final BlockingQueue<T> queue;
+    private final int queueCapacity;
+    private final int threadCount;
+    private final int batchSize;
+    private final long batchWaitTime;
+    private final StageMeter meter;
+    private ExecutorService workers;
+    private final long POLL_TIMEOUT = 100;
+
+    public PipelineStage(String name, int queueCapacity, int threadCount, int batchSize, long batchWaitTime) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.queueCapacity = queueCapacity;
+        this.threadCount = threadCount;
+        this.batchSize = Math.max(1, batchSize);
+        this.batchWaitTime = batchWaitTime;
+        this.meter = new StageMeter(name, threadCount);
+    }
+
+    /**
+     * Запускает потоки стадии. Потоки завершаются, когда предыдущая стадия
+     * перестала быть активной и очередь опустела.
+     */
+    public void start(Consumer<List<T>> handler, BooleanSupplier isUpstreamActive) {
+        workers = Executors.newFixedThreadPool(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            workers.execute(() -> runWorker(handler, isUpstreamActive));
+        }
+        workers.shutdown();
+    }
+
+    public void put(T item) throws InterruptedException {
+        queue.put(item);
+    }
+
+    public boolean isTerminated() {
+        return workers == null || workers.isTerminated();
+    }
+
+    public IndexingStageMetrics getMetrics() {
+        return meter.getMetrics(queue.size(), queueCapacity);
+    }
+
+    private void runWorker(Consumer<List<T>> handler, BooleanSupplier isUpstreamActive) {
+        try {
+            while (isUpstreamActive.getAsBoolean() || !queue.isEmpty()) {
+                List<T> batch = collectBatch();
+                if (batch.isEmpty()) {
+                    continue;
+                }
+
+                long startTime = System.nanoTime();
+                try {
+                    handler.accept(batch);
+                } catch (RuntimeException e) {
+                    logger.error("Stage " + name + " error: ", e);
+                }
+                meter.record(batch.size(), startTime);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<T> collectBatch() throws InterruptedException {
+        List<T> batch = new ArrayList<>(batchSize);
+        T item = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+        if (item == null) {
+            return batch;
+        }
+
+        batch.add(item);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWaitTime);
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remainingTime = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remainingTime <= 0) {
+                break;
+            }
+
+            item = queue.poll(remainingTime, TimeUnit.NANOSECONDS);
+            if (item == null) {
+                break;
+            }
+            batch.add(item);
+        }
+
+        return batch;
+    }
+}
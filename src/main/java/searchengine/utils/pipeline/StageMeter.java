@@ -0,0 +1,46 @@
+package searchengine.utils.pipeline;
+
+import lombok.RequiredArgsConstructor;
+import searchengine.data.statistics.IndexingStageMetrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счетчики стадии индексации: количество обработанных элементов и время работы потоков.
+ * Пропускная способность считается от старта стадии до последней обработки.
+ */
+@RequiredArgsConstructor
+public class StageMeter {
+    private final String name;
+    private final int threadCount;
+    private final long startTime = System.nanoTime();
+    private final AtomicLong lastRecordTime = new AtomicLong(startTime);
+    private final AtomicLong processedCount = new AtomicLong();
+    private final AtomicLong busyTime = new AtomicLong();
+    private final double NANOS_IN_SECOND = 1_000_000_000.0;
+    private final double NANOS_IN_MILLISECOND = 1_000_000.0;
+
+    public void record(int itemCount, long processingStartTime) {
+        long now = System.nanoTime();
+        processedCount.addAndGet(itemCount);
+        busyTime.addAndGet(now - processingStartTime);
+        lastRecordTime.accumulateAndGet(now, Math::max);
+    }
+
+    public IndexingStageMetrics getMetrics(int queueSize, Integer queueCapacity) {
+        long processed = processedCount.get();
+        long busy = busyTime.get();
+        long elapsed = Math.max(1, lastRecordTime.get() - startTime);
+
+        IndexingStageMetrics metrics = new IndexingStageMetrics();
+        metrics.setName(name);
+        metrics.setThreadCount(threadCount);
+        metrics.setQueueSize(queueSize);
+        metrics.setQueueCapacity(queueCapacity);
+        metrics.setProcessedCount(processed);
+        metrics.setThroughput(processed * NANOS_IN_SECOND / elapsed);
+        metrics.setAverageProcessingTime(processed == 0 ? 0 : busy / NANOS_IN_MILLISECOND / processed);
+        metrics.setUtilization(Math.min(1.0, (double) busy / elapsed / threadCount));
+        return metrics;
+    }
+}
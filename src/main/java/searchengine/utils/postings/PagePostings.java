@@ -0,0 +1,100 @@
+package searchengine.utils.postings;
+
+import searchengine.utils.TermFrequencyMap;
+
+import java.util.Arrays;
+
+/**
+ * Леммы страницы: частоты и вхождения каждой леммы.
+ * Номера слов считаются по всем словам текста, включая служебные,
+ * чтобы расстояние между вхождениями совпадало с расстоянием в тексте.
+ * Списки вхождений лежат в массиве по порядковому номеру леммы в frequencies,
+ * поэтому каждое слово текста стоит одного поиска в хеш-таблице.
+ * Экземпляр можно переиспользовать после clear(), наружу передается copy().
+ */
+public class PagePostings {
+    private static final int MIN_CAPACITY = 8;
+    private static final int MAX_RETAINED_LEMMAS = 1 << 15;
+    private final TermFrequencyMap frequencies;
+    private PositionList[] positionLists;
+    private int tokenCount;
+
+    public PagePostings() {
+        this(MIN_CAPACITY);
+    }
+
+    public PagePostings(int expectedLemmaCount) {
+        frequencies = new TermFrequencyMap(expectedLemmaCount);
+        positionLists = new PositionList[Math.max(MIN_CAPACITY, expectedLemmaCount)];
+    }
+
+    /**
+     * Учитывает очередное слово текста; lemma == null для слов без леммы.
+     */
+    public void addToken(String lemma, int offset) {
+        if (lemma != null) {
+            getOrCreatePositionList(frequencies.increment(lemma), 0).add(tokenCount, offset);
+        }
+        tokenCount++;
+    }
+
+    /**
+     * Присоединяет леммы следующей по тексту части.
+     */
+    public void append(PagePostings next) {
+        for (int i = 0; i < next.frequencies.size(); i++) {
+            int index = frequencies.add(next.frequencies.getKey(i), next.frequencies.getCount(i));
+            PositionList positionList = next.positionLists[i];
+            getOrCreatePositionList(index, positionList.size()).addShifted(positionList, tokenCount);
+        }
+        tokenCount += next.tokenCount;
+    }
+
+    /**
+     * Копия точного размера, не связанная с этим экземпляром.
+     */
+    public PagePostings copy() {
+        PagePostings copy = new PagePostings(frequencies.size());
+        copy.append(this);
+        return copy;
+    }
+
+    public void clear() {
+        if (positionLists.length > MAX_RETAINED_LEMMAS) {
+            positionLists = new PositionList[MIN_CAPACITY];
+        } else {
+            for (int i = 0; i < frequencies.size(); i++) {
+                positionLists[i].clear();
+            }
+        }
+        frequencies.clear();
+        tokenCount = 0;
+    }
+
+    public TermFrequencyMap getFrequencies() {
+        return frequencies;
+    }
+
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    public PositionList getPositionList(String lemma) {
+        int index = frequencies.indexOf(lemma);
+        return index < 0 ? null : positionLists[index];
+    }
+
+    public boolean isEmpty() {
+        return frequencies.isEmpty();
+    }
+
+    private PositionList getOrCreatePositionList(int index, int expectedSize) {
+        if (index >= positionLists.length) {
+            positionLists = Arrays.copyOf(positionLists, Math.max(index + 1, positionLists.length * 2));
+        }
+        if (positionLists[index] == null) {
+            positionLists[index] = new PositionList(expectedSize);
+        }
+        return positionLists[index];
+    }
+}
@@ -0,0 +1,127 @@
+package searchengine.utils.postings;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Вхождения леммы на странице: номер слова в тексте и смещение его первого символа.
+ * Хранится в search_index в сжатом виде: количество вхождений, затем пары
+ * разностей с предыдущим вхождением, каждое число - varint (по 7 бит в байте).
+ */
+public class PositionList {
+    private static final int MIN_CAPACITY = 4;
+    private static final int MAX_RETAINED_CAPACITY = 1 << 12;
+    private int[] positions;
+    private int[] offsets;
+    private int size;
+
+    public PositionList() {
+        this(MIN_CAPACITY);
+    }
+
+    public PositionList(int expectedSize) {
+        positions = new int[Math.max(MIN_CAPACITY, expectedSize)];
+        offsets = new int[positions.length];
+    }
+
+    /**
+     * Вхождения добавляются по возрастанию позиции.
+     */
+    public void add(int position, int offset) {
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        positions[size] = position;
+        offsets[size] = offset;
+        size++;
+    }
+
+    /**
+     * Добавляет вхождения следующей части текста, сдвигая их номера на число слов предыдущих частей.
+     */
+    public void addShifted(PositionList other, int positionShift) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.positions[i] + positionShift, other.offsets[i]);
+        }
+    }
+
+    /**
+     * Очищает список для повторного использования; слишком выросшие массивы не сохраняются.
+     */
+    public void clear() {
+        if (positions.length > MAX_RETAINED_CAPACITY) {
+            positions = new int[MIN_CAPACITY];
+            offsets = new int[MIN_CAPACITY];
+        }
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getPosition(int index) {
+        return positions[index];
+    }
+
+    public int getOffset(int index) {
+        return offsets[index];
+    }
+
+    public int[] getPositions() {
+        return Arrays.copyOf(positions, size);
+    }
+
+    public int[] getOffsets() {
+        return Arrays.copyOf(offsets, size);
+    }
+
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size * 3 + 1);
+        writeVarInt(out, size);
+        int previousPosition = 0;
+        int previousOffset = 0;
+        for (int i = 0; i < size; i++) {
+            writeVarInt(out, positions[i] - previousPosition);
+            writeVarInt(out, offsets[i] - previousOffset);
+            previousPosition = positions[i];
+            previousOffset = offsets[i];
+        }
+        return out.toByteArray();
+    }
+
+    public static PositionList decode(byte[] data) {
+        int[] cursor = new int[1];
+        int count = readVarInt(data, cursor);
+        PositionList positionList = new PositionList(count);
+        int position = 0;
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            position += readVarInt(data, cursor);
+            offset += readVarInt(data, cursor);
+            positionList.add(position, offset);
+        }
+        return positionList;
+    }
+
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(byte[] data, int[] cursor) {
+        int value = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = data[cursor[0]++];
+            value |= (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return value;
+    }
+}
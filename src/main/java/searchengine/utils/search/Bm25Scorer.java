@@ -0,0 +1,45 @@
+package searchengine.utils.search;
+
+import searchengine.data.search.CorpusStatistics;
+
+import java.util.List;
+
+/**
+ * BM25 для страниц одного сайта по спискам лемм запроса:
+ * сумма idf * tf * (k1 + 1) / (tf + k1 * (1 - b + b * длина / средняя длина)).
+ * Длина страницы - число слов с леммами. Число страниц, df лемм и средняя длина
+ * берутся по всем сайтам поиска, поэтому оценки страниц разных сайтов сравнимы.
+ */
+public class Bm25Scorer {
+    private final List<PostingList> postingLists;
+    private final double[] idf;
+    private final double k1;
+    private final double b;
+    private final double averagePageLength;
+
+    public Bm25Scorer(List<PostingList> postingLists, double k1, double b, CorpusStatistics corpusStatistics) {
+        this.postingLists = postingLists;
+        this.k1 = k1;
+        this.b = b;
+        this.averagePageLength = Math.max(1, corpusStatistics.getAveragePageLength());
+        this.idf = new double[postingLists.size()];
+        int pageCount = corpusStatistics.getPageCount();
+        for (int i = 0; i < idf.length; i++) {
+            int documentFrequency = corpusStatistics.getDocumentFrequency(postingLists.get(i).getLemma());
+            idf[i] = Math.log(1 + (pageCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+        }
+    }
+
+    public double score(int pageId, int pageLength) {
+        double lengthNorm = k1 * (1 - b + b * pageLength / averagePageLength);
+        double score = 0;
+        for (int i = 0; i < idf.length; i++) {
+            int index = postingLists.get(i).indexOf(pageId);
+            if (index >= 0) {
+                float termFrequency = postingLists.get(i).getRating(index);
+                score += idf[i] * termFrequency * (k1 + 1) / (termFrequency + lengthNorm);
+            }
+        }
+        return score;
+    }
+}
@@ -0,0 +1,248 @@
+package searchengine.utils.search;
+
+import org.springframework.stereotype.Component;
+import searchengine.data.search.CorpusStatistics;
+import searchengine.data.search.IndexRow;
+import searchengine.data.search.LemmaStatistics;
+import searchengine.data.siteindexing.IndexedPage;
+import searchengine.utils.postings.PagePostings;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Обратный индекс в памяти: для каждого сайта лемма - список страниц (PostingList),
+ * а также длины страниц в словах и их сумма по сайту для ранжирования BM25.
+ * Загружается из search_index при старте и обновляется после фиксации каждой записи страниц,
+ * поэтому поиск не обращается к базе за леммами и индексами.
+ * Запись идет под блокировкой записи; поиск, которому нужно согласованное состояние
+ * нескольких списков, выполняется целиком внутри read().
+ * Каждое изменение увеличивает номер поколения индекса, по нему сбрасываются кэши результатов поиска.
+ */
+@Component
+public class InvertedIndex {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Map<String, PostingList>> siteLemmas = new HashMap<>();
+    private final Map<Integer, PageLemmas> pages = new HashMap<>();
+    private final Map<Integer, SiteStatistics> siteStatistics = new HashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public <T> T read(Supplier<T> action) {
+        lock.readLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Список страниц леммы на сайте или null. Читать его можно только внутри read().
+     */
+    public PostingList getPostingList(int siteId, String lemma) {
+        return read(() -> siteLemmas.getOrDefault(siteId, Map.of()).get(lemma));
+    }
+
+    /**
+     * Частоты лемм по сайтам за одну блокировку чтения; у лемм, которых нет в индексе, частоты пустые.
+     */
+    public Map<String, LemmaStatistics> getLemmaStatistics(Collection<String> lemmas) {
+        return read(() -> {
+            Map<String, LemmaStatistics> statistics = new HashMap<>();
+            for (String lemma : lemmas) {
+                Map<Integer, Integer> siteFrequencies = new HashMap<>();
+                siteLemmas.forEach((siteId, postingLists) -> {
+                    PostingList postingList = postingLists.get(lemma);
+                    if (postingList != null) {
+                        siteFrequencies.put(siteId, postingList.size());
+                    }
+                });
+                statistics.put(lemma, new LemmaStatistics(lemma, siteFrequencies));
+            }
+            return statistics;
+        });
+    }
+
+    /**
+     * Добавляет записанные страницы; страница, уже бывшая в индексе, заменяется целиком.
+     */
+    /**
+     * Статистика BM25 по сайтам siteIds вместе для лемм запроса.
+     */
+    public CorpusStatistics getCorpusStatistics(Collection<Integer> siteIds, Collection<String> lemmas) {
+        return read(() -> {
+            int pageCount = 0;
+            long totalLength = 0;
+            Map<String, Integer> documentFrequencies = new HashMap<>();
+            for (int siteId : siteIds) {
+                SiteStatistics statistics = siteStatistics.getOrDefault(siteId, new SiteStatistics());
+                pageCount += statistics.pageCount;
+                totalLength += statistics.totalLength;
+                Map<String, PostingList> postingLists = siteLemmas.getOrDefault(siteId, Map.of());
+                for (String lemma : lemmas) {
+                    PostingList postingList = postingLists.get(lemma);
+                    documentFrequencies.merge(lemma, postingList == null ? 0 : postingList.size(), Integer::sum);
+                }
+            }
+            return new CorpusStatistics(pageCount, pageCount == 0 ? 0 : (double) totalLength / pageCount
+                    , documentFrequencies);
+        });
+    }
+
+    public void addPages(List<IndexedPage> indexedPages) {
+        lock.writeLock().lock();
+        try {
+            for (IndexedPage indexedPage : indexedPages) {
+                int siteId = indexedPage.getPage().getSite().getId();
+                int pageId = indexedPage.getPage().getId();
+                PagePostings postings = indexedPage.getPostings();
+                removePageEntry(pageId);
+                postings.getFrequencies().forEach((lemma, rating) -> addRow(new IndexRow(siteId, pageId, lemma
+                        , rating, postings.getPositionList(lemma).encode())));
+            }
+            generation.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Добавляет строки search_index пакетом под одной блокировкой записи: при загрузке индекса
+     * строки приходят диапазонами id страниц, все строки страницы - в одном пакете.
+     * Страницы, которые уже есть в индексе, пропускаются: их добавила запись страниц
+     * во время загрузки, и ее данные не старше прочитанных из базы.
+     */
+    public void addIndices(List<IndexRow> rows) {
+        lock.writeLock().lock();
+        try {
+            Set<Integer> presentPages = rows.stream().map(IndexRow::getPageId).filter(pages::containsKey)
+                    .collect(Collectors.toSet());
+            rows.stream().filter(row -> !presentPages.contains(row.getPageId())).forEach(this::addRow);
+            generation.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Вызывается только под блокировкой записи.
+     */
+    private void addRow(IndexRow row) {
+        PostingList postingList = siteLemmas.computeIfAbsent(row.getSiteId(), id -> new HashMap<>())
+                .computeIfAbsent(row.getLemma(), PostingList::new);
+        postingList.add(row.getPageId(), row.getRating(), row.getPositions());
+        PageLemmas pageLemmas = pages.get(row.getPageId());
+        SiteStatistics statistics = siteStatistics.computeIfAbsent(row.getSiteId(), id -> new SiteStatistics());
+        if (pageLemmas == null) {
+            pageLemmas = new PageLemmas(row.getSiteId());
+            pages.put(row.getPageId(), pageLemmas);
+            statistics.pageCount++;
+        }
+        pageLemmas.lemmas.add(postingList.getLemma());
+        pageLemmas.length += (int) row.getRating();
+        statistics.totalLength += (int) row.getRating();
+    }
+
+    public void removePage(int pageId) {
+        lock.writeLock().lock();
+        try {
+            if (removePageEntry(pageId)) {
+                generation.incrementAndGet();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Убирает страницу из списков и статистики сайта. Вызывается только под блокировкой записи.
+     */
+    private boolean removePageEntry(int pageId) {
+        PageLemmas pageLemmas = pages.remove(pageId);
+        if (pageLemmas == null) {
+            return false;
+        }
+
+        SiteStatistics statistics = siteStatistics.get(pageLemmas.siteId);
+        statistics.pageCount--;
+        statistics.totalLength -= pageLemmas.length;
+        Map<String, PostingList> lemmas = siteLemmas.get(pageLemmas.siteId);
+        for (String lemma : pageLemmas.lemmas) {
+            PostingList postingList = lemmas.get(lemma);
+            postingList.remove(pageId);
+            if (postingList.isEmpty()) {
+                lemmas.remove(lemma);
+            }
+        }
+        return true;
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            siteLemmas.clear();
+            pages.clear();
+            siteStatistics.clear();
+            generation.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public int getPageCount() {
+        return read(pages::size);
+    }
+
+    public int getSitePageCount(int siteId) {
+        return read(() -> siteStatistics.getOrDefault(siteId, new SiteStatistics()).pageCount);
+    }
+
+    public double getAveragePageLength(int siteId) {
+        return read(() -> {
+            SiteStatistics statistics = siteStatistics.get(siteId);
+            return statistics == null || statistics.pageCount == 0 ? 0
+                    : (double) statistics.totalLength / statistics.pageCount;
+        });
+    }
+
+    /**
+     * Число слов страницы, у которых есть лемма.
+     */
+    public int getPageLength(int pageId) {
+        return read(() -> {
+            PageLemmas pageLemmas = pages.get(pageId);
+            return pageLemmas == null ? 0 : pageLemmas.length;
+        });
+    }
+
+    /**
+     * Леммы страницы, чтобы удалить ее из списков без просмотра всего индекса.
+     */
+    private static class PageLemmas {
+        private final int siteId;
+        private final List<String> lemmas = new ArrayList<>();
+        private int length;
+
+        PageLemmas(int siteId) {
+            this.siteId = siteId;
+        }
+    }
+
+    private static class SiteStatistics {
+        private int pageCount;
+        private long totalLength;
+    }
+}
@@ -0,0 +1,94 @@
+package searchengine.utils.search;
+
+import java.util.List;
+
+/**
+ * Проверки взаимного расположения слов на странице по отсортированным спискам их позиций.
+ * Списки обходятся слиянием с монотонно растущими указателями, без перебора пар.
+ */
+public final class PositionMatcher {
+    private PositionMatcher() {
+    }
+
+    /**
+     * Есть ли позиция start, для которой каждое слово i стоит на start + offsets[i].
+     * Кандидаты берутся из самого короткого списка.
+     */
+    public static boolean containsPhrase(List<int[]> termPositions, int[] offsets) {
+        int rarest = 0;
+        for (int i = 1; i < termPositions.size(); i++) {
+            if (termPositions.get(i).length < termPositions.get(rarest).length) {
+                rarest = i;
+            }
+        }
+
+        PhraseScan scan = new PhraseScan(termPositions, offsets);
+        for (int position : termPositions.get(rarest)) {
+            int start = position - offsets[rarest];
+            if (start >= 0 && scan.matchesAt(start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Длина в словах наименьшего окна, в котором встречаются все слова;
+     * Integer.MAX_VALUE, если какого-то слова нет.
+     */
+    public static int getMinWindow(List<int[]> termPositions) {
+        if (termPositions.isEmpty()) {
+            return Integer.MAX_VALUE;
+        }
+
+        int[] cursors = new int[termPositions.size()];
+        int minWindow = Integer.MAX_VALUE;
+        while (true) {
+            int minTerm = -1;
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int i = 0; i < termPositions.size(); i++) {
+                int[] positions = termPositions.get(i);
+                if (cursors[i] == positions.length) {
+                    return minWindow;
+                }
+                if (positions[cursors[i]] < min) {
+                    min = positions[cursors[i]];
+                    minTerm = i;
+                }
+                max = Math.max(max, positions[cursors[i]]);
+            }
+            minWindow = Math.min(minWindow, max - min + 1);
+            cursors[minTerm]++;
+        }
+    }
+
+    /**
+     * Проверка кандидатов фразы по возрастанию: указатели списков только растут.
+     */
+    private static class PhraseScan {
+        private final List<int[]> termPositions;
+        private final int[] offsets;
+        private final int[] cursors;
+
+        PhraseScan(List<int[]> termPositions, int[] offsets) {
+            this.termPositions = termPositions;
+            this.offsets = offsets;
+            this.cursors = new int[termPositions.size()];
+        }
+
+        boolean matchesAt(int start) {
+            for (int i = 0; i < termPositions.size(); i++) {
+                int[] positions = termPositions.get(i);
+                int expected = start + offsets[i];
+                while (cursors[i] < positions.length && positions[cursors[i]] < expected) {
+                    cursors[i]++;
+                }
+                if (cursors[i] == positions.length || positions[cursors[i]] != expected) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package searchengine.utils.search;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Пересечение списков страниц, отсортированных по id. Списки обходятся от самого короткого,
+ * кандидаты проверяются в следующем списке одним из способов:
+ * по битовой карте для плотных списков, галопирующим поиском для списков намного длиннее
+ * кандидатов, слиянием для списков сравнимой длины.
+ */
+public final class PostingIntersection {
+    // во сколько раз список должен быть длиннее кандидатов, чтобы галопирующий поиск был выгоднее слияния
+    private static final int GALLOP_SIZE_RATIO = 8;
+
+    private PostingIntersection() {
+    }
+
+    /**
+     * id страниц, которые есть во всех списках, по возрастанию.
+     */
+    public static int[] intersect(List<PostingList> postingLists) {
+        if (postingLists.isEmpty()) {
+            return new int[0];
+        }
+
+        PostingList[] lists = postingLists.toArray(new PostingList[0]);
+        Arrays.sort(lists, Comparator.comparingInt(PostingList::size));
+        int[] candidates = new int[lists[0].size()];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = lists[0].getPageId(i);
+        }
+
+        int count = candidates.length;
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            PostingList list = lists[i];
+            if (list.isDense()) {
+                count = filterDense(candidates, count, list);
+            } else if (list.size() > (long) count * GALLOP_SIZE_RATIO) {
+                count = filterGalloping(candidates, count, list);
+            } else {
+                count = filterMerge(candidates, count, list);
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    private static int filterDense(int[] candidates, int count, PostingList list) {
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            if (list.containsDense(candidates[i])) {
+                candidates[found++] = candidates[i];
+            }
+        }
+        return found;
+    }
+
+    private static int filterMerge(int[] candidates, int count, PostingList list) {
+        int found = 0;
+        int cursor = 0;
+        for (int i = 0; i < count && cursor < list.size(); i++) {
+            while (cursor < list.size() && list.getPageId(cursor) < candidates[i]) {
+                cursor++;
+            }
+            if (cursor < list.size() && list.getPageId(cursor) == candidates[i]) {
+                candidates[found++] = candidates[i];
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Для каждого кандидата шаг от текущей позиции удваивается, пока не перешагнет кандидата,
+     * затем в найденном отрезке выполняется двоичный поиск: O(count * log(size / count)).
+     */
+    private static int filterGalloping(int[] candidates, int count, PostingList list) {
+        int found = 0;
+        int low = 0;
+        for (int i = 0; i < count && low < list.size(); i++) {
+            int target = candidates[i];
+            int step = 1;
+            int high = low;
+            while (high < list.size() && list.getPageId(high) < target) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+
+            int index = list.indexOf(target, low, Math.min(high + 1, list.size()));
+            if (index >= 0) {
+                candidates[found++] = target;
+                low = index + 1;
+            } else {
+                low = -index - 1;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,126 @@
+package searchengine.utils.search;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Страницы сайта, на которых встречается лемма, по возрастанию id:
+ * рейтинг леммы на странице и ее вхождения в формате PositionList.encode().
+ * Массивы вхождений после добавления не меняются и могут читаться без блокировки индекса.
+ * Для плотных списков строится битовая карта id страниц, она сбрасывается при каждом изменении.
+ */
+public class PostingList {
+    private static final int MIN_CAPACITY = 4;
+    // список плотный, если занимает не меньше 1/8 диапазона своих id: карта тогда не больше байта на страницу
+    private static final int DENSE_RANGE_RATIO = 8;
+    private static final int MIN_DENSE_SIZE = 64;
+    @Getter
+    private final String lemma;
+    private int[] pageIds = new int[MIN_CAPACITY];
+    private float[] ratings = new float[MIN_CAPACITY];
+    private byte[][] positions = new byte[MIN_CAPACITY][];
+    private int size;
+    private volatile BitSet pageIdBits;
+
+    public PostingList(String lemma) {
+        this.lemma = lemma;
+    }
+
+    /**
+     * Новые страницы получают возрастающие id и добавляются в конец; остальные вставляются по порядку.
+     */
+    public void add(int pageId, float rating, byte[] pagePositions) {
+        int index = size == 0 || pageIds[size - 1] < pageId ? size : Arrays.binarySearch(pageIds, 0, size, pageId);
+        pageIdBits = null;
+        if (index >= 0 && index < size) {
+            ratings[index] = rating;
+            positions[index] = pagePositions;
+            return;
+        }
+
+        index = index == size ? size : -index - 1;
+        if (size == pageIds.length) {
+            grow();
+        }
+        System.arraycopy(pageIds, index, pageIds, index + 1, size - index);
+        System.arraycopy(ratings, index, ratings, index + 1, size - index);
+        System.arraycopy(positions, index, positions, index + 1, size - index);
+        pageIds[index] = pageId;
+        ratings[index] = rating;
+        positions[index] = pagePositions;
+        size++;
+    }
+
+    public void remove(int pageId) {
+        int index = indexOf(pageId);
+        if (index < 0) {
+            return;
+        }
+
+        pageIdBits = null;
+        System.arraycopy(pageIds, index + 1, pageIds, index, size - index - 1);
+        System.arraycopy(ratings, index + 1, ratings, index, size - index - 1);
+        System.arraycopy(positions, index + 1, positions, index, size - index - 1);
+        positions[--size] = null;
+    }
+
+    public int indexOf(int pageId) {
+        return Arrays.binarySearch(pageIds, 0, size, pageId);
+    }
+
+    /**
+     * Двоичный поиск в отрезке [fromIndex, toIndex), результат как у Arrays.binarySearch.
+     */
+    public int indexOf(int pageId, int fromIndex, int toIndex) {
+        return Arrays.binarySearch(pageIds, fromIndex, toIndex, pageId);
+    }
+
+    public boolean isDense() {
+        return size >= MIN_DENSE_SIZE && (long) size * DENSE_RANGE_RATIO >= pageIds[size - 1] - pageIds[0] + 1L;
+    }
+
+    /**
+     * Есть ли страница в списке за O(1); только для плотных списков.
+     * Карта строится при первом обращении, читатели могут построить ее одновременно - результат одинаков.
+     */
+    public boolean containsDense(int pageId) {
+        BitSet bits = pageIdBits;
+        if (bits == null) {
+            bits = new BitSet(pageIds[size - 1] - pageIds[0] + 1);
+            for (int i = 0; i < size; i++) {
+                bits.set(pageIds[i] - pageIds[0]);
+            }
+            pageIdBits = bits;
+        }
+        return pageId >= pageIds[0] && bits.get(pageId - pageIds[0]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getPageId(int index) {
+        return pageIds[index];
+    }
+
+    public float getRating(int index) {
+        return ratings[index];
+    }
+
+    public byte[] getPositions(int index) {
+        return positions[index];
+    }
+
+    private void grow() {
+        int capacity = pageIds.length * 2;
+        pageIds = Arrays.copyOf(pageIds, capacity);
+        ratings = Arrays.copyOf(ratings, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+    }
+}
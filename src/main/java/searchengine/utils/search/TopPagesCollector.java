@@ -0,0 +1,108 @@
+package searchengine.utils.search;
+
+/**
+ * Отбор capacity страниц с наибольшим рангом за O(n log k) и O(k) памяти.
+ * Min-куча на массивах: в вершине худшая из отобранных страниц, при равном ранге
+ * хуже страница с большим id. После sort() страницы идут от лучшей к худшей.
+ */
+public class TopPagesCollector {
+    private final int[] pageIds;
+    private final double[] scores;
+    private int size;
+    private int totalCount;
+
+    public TopPagesCollector(int capacity) {
+        pageIds = new int[Math.max(0, capacity)];
+        scores = new double[pageIds.length];
+    }
+
+    public void offer(int pageId, double score) {
+        totalCount++;
+        if (size < pageIds.length) {
+            pageIds[size] = pageId;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && isWorse(0, pageId, score)) {
+            pageIds[0] = pageId;
+            scores[0] = score;
+            siftDown(0, size);
+        }
+    }
+
+    /**
+     * Попадет ли в отбор страница с таким рангом: верхняя оценка ранга позволяет
+     * не вычислять дорогие множители для заведомо не попадающих страниц.
+     */
+    public boolean canAccept(int pageId, double score) {
+        return size < pageIds.length || (size > 0 && isWorse(0, pageId, score));
+    }
+
+    /**
+     * Пирамидальная сортировка на месте: худшая страница из вершины переносится в конец.
+     */
+    public void sort() {
+        for (int last = size - 1; last > 0; last--) {
+            swap(0, last);
+            siftDown(0, last);
+        }
+    }
+
+    /**
+     * Число всех предложенных страниц, а не только отобранных.
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getPageId(int index) {
+        return pageIds[index];
+    }
+
+    public double getScore(int index) {
+        return scores[index];
+    }
+
+    private boolean isWorse(int index, int pageId, double score) {
+        return scores[index] < score || (scores[index] == score && pageIds[index] > pageId);
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (!isWorse(index, pageIds[parent], scores[parent])) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index, int heapSize) {
+        while (true) {
+            int worst = index;
+            for (int child = 2 * index + 1; child <= 2 * index + 2 && child < heapSize; child++) {
+                if (isWorse(child, pageIds[worst], scores[worst])) {
+                    worst = child;
+                }
+            }
+            if (worst == index) {
+                return;
+            }
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int first, int second) {
+        int pageId = pageIds[first];
+        pageIds[first] = pageIds[second];
+        pageIds[second] = pageId;
+        double score = scores[first];
+        scores[first] = scores[second];
+        scores[second] = score;
+    }
+}
@@ -0,0 +1,128 @@
+package searchengine.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import searchengine.config.SearchResultSettings;
+import searchengine.data.search.IndexRow;
+import searchengine.data.search.PageSearchInfo;
+import searchengine.data.search.SearchData;
+import searchengine.dto.request.SearchRequest;
+import searchengine.dto.response.SearchResponse;
+import searchengine.model.SiteEntity;
+import searchengine.repositories.PageRepository;
+import searchengine.repositories.SiteRepository;
+import searchengine.utils.LemmaParser;
+import searchengine.utils.postings.PagePostings;
+import searchengine.utils.search.InvertedIndex;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SearchServiceImplTest {
+    private static final int PAGE_COUNT = 6;
+    private static final long SNIPPET_TIMEOUT = 300;
+    private final AtomicLong snippetDelay = new AtomicLong();
+    private SearchResultSettings settings;
+    private SearchServiceImpl searchService;
+
+    @BeforeEach
+    void setUp() {
+        SiteRepository siteRepository = mock(SiteRepository.class);
+        when(siteRepository.findIndexedSites(any(), anyInt())).thenReturn(List.of(new SiteEntity().setId(1)));
+        PageRepository pageRepository = mock(PageRepository.class);
+        when(pageRepository.findSearchInfoByIds(any())).thenReturn(IntStream.rangeClosed(1, PAGE_COUNT)
+                .mapToObj(id -> new PageSearchInfo(id, 1, "http://site.ru", "site", "/" + id, "title"
+                        , "описание " + id, "кот"))
+                .toList());
+
+        LemmaParser lemmaParser = mock(LemmaParser.class);
+        when(lemmaParser.getLemmaSet(anyString())).thenReturn(Map.of("кот", Set.of("кот")));
+        when(lemmaParser.collectPostings(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(snippetDelay.get());
+            PagePostings postings = new PagePostings();
+            postings.addToken("кот", 0);
+            return postings;
+        });
+
+        // страницы без позиций: сниппет строится через лемматизацию текста
+        InvertedIndex invertedIndex = new InvertedIndex();
+        invertedIndex.addIndices(IntStream.rangeClosed(1, PAGE_COUNT)
+                .mapToObj(id -> new IndexRow(1, id, "кот", 1, null)).toList());
+
+        settings = createSettings();
+        searchService = new SearchServiceImpl(siteRepository, pageRepository, settings, lemmaParser, invertedIndex);
+        searchService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        searchService.shutdown();
+    }
+
+    @Test
+    void slowSnippetsDelayResponseByOneTimeout() throws Exception {
+        snippetDelay.set(10_000);
+
+        long startTime = System.nanoTime();
+        SearchResponse response = (SearchResponse) searchService.search(createRequest());
+        long elapsedMs = (System.nanoTime() - startTime) / 1_000_000;
+
+        // по таймауту на каждую страницу при одном потоке было бы PAGE_COUNT * SNIPPET_TIMEOUT
+        assertTrue(elapsedMs < SNIPPET_TIMEOUT * 3, "search took " + elapsedMs + " ms");
+        assertEquals(PAGE_COUNT, response.getData().size());
+        for (SearchData data : response.getData()) {
+            assertTrue(data.isSnippetFallback());
+            assertEquals("описание " + data.getUri().substring(1), data.getSnippet());
+        }
+    }
+
+    @Test
+    void cancelledSnippetFreesPoolThread() throws Exception {
+        snippetDelay.set(10_000);
+        searchService.search(createRequest());
+
+        // занятый поток пула не освободился бы и за это время
+        snippetDelay.set(0);
+        settings.setSnippetTimeout(5000);
+        SearchResponse response = (SearchResponse) searchService.search(createRequest());
+
+        assertEquals(PAGE_COUNT, response.getData().size());
+        for (SearchData data : response.getData()) {
+            assertFalse(data.isSnippetFallback());
+            assertEquals("<b>кот</b>", data.getSnippet());
+        }
+    }
+
+    private static SearchRequest createRequest() {
+        SearchRequest request = new SearchRequest();
+        request.setQuery("кот");
+        request.setLimit(PAGE_COUNT);
+        return request;
+    }
+
+    private static SearchResultSettings createSettings() {
+        SearchResultSettings settings = new SearchResultSettings();
+        settings.setDefaultSearchResultLimit(20);
+        settings.setSnippetMaxSize(180);
+        settings.setSnippetPartSize(30);
+        settings.setProximityWindow(10);
+        settings.setProximityBoost(1);
+        settings.setBm25K1(1.2);
+        settings.setBm25B(0.75);
+        settings.setSnippetThreadCount(1);
+        settings.setSnippetQueueSize(PAGE_COUNT);
+        settings.setSnippetTimeout(SNIPPET_TIMEOUT);
+        return settings;
+    }
+}
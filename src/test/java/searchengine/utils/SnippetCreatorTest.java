@@ -0,0 +1,65 @@
+package searchengine.utils;
+
+import org.junit.jupiter.api.Test;
+import searchengine.config.SearchResultSettings;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnippetCreatorTest {
+
+    @Test
+    void highlightsAllHitsInsideFragment() {
+        String text = "Кошка спит на окне, кошка смотрит.";
+
+        String snippet = createSnippetCreator(180, 60).getSnippet(text, List.of(new int[]{0, 20}));
+
+        assertEquals("<b>Кошка</b> спит на окне, <b>кошка</b> смотрит.", snippet);
+    }
+
+    @Test
+    void prefersFragmentCoveringMoreQueryLemmas() {
+        String text = "кот один. Далее длинный текст без слов запроса. Здесь кот и пес рядом.";
+        int secondCat = text.lastIndexOf("кот");
+        int dog = text.indexOf("пес");
+
+        String snippet = createSnippetCreator(10, 10).getSnippet(text
+                , List.of(new int[]{0, secondCat}, new int[]{dog}));
+
+        assertTrue(snippet.startsWith("<b>кот</b> и <b>пес</b>"), snippet);
+    }
+
+    @Test
+    void joinsSeparateFragmentsInTextOrder() {
+        String text = "пес " + "слово ".repeat(20) + "кот";
+        int cat = text.indexOf("кот");
+
+        String snippet = createSnippetCreator(180, 5).getSnippet(text, List.of(new int[]{cat}, new int[]{0}));
+
+        assertEquals("<b>пес</b> слово...<b>кот</b>", snippet);
+    }
+
+    @Test
+    void stopsSelectingFragmentsWhenInterrupted() {
+        Thread.currentThread().interrupt();
+        try {
+            assertEquals("", createSnippetCreator(180, 30).getSnippet("кот", List.of(new int[]{0})));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test
+    void returnsEmptySnippetWithoutHits() {
+        assertEquals("", createSnippetCreator(180, 30).getSnippet("текст", List.of(new int[0])));
+        assertEquals("", createSnippetCreator(180, 30).getSnippet(null, List.<int[]>of()));
+    }
+
+    private static SnippetCreator createSnippetCreator(int snippetMaxSize, int snippetPartSize) {
+        SearchResultSettings settings = new SearchResultSettings();
+        settings.setSnippetMaxSize(snippetMaxSize);
+        settings.setSnippetPartSize(snippetPartSize);
+        return new SnippetCreator(settings, null);
+    }
+}
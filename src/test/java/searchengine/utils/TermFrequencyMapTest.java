@@ -0,0 +1,66 @@
+package searchengine.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TermFrequencyMapTest {
+
+    @Test
+    void countsTermsInInsertionOrder() {
+        TermFrequencyMap frequencies = new TermFrequencyMap();
+        assertEquals(0, frequencies.increment("b"));
+        assertEquals(1, frequencies.increment("a"));
+        assertEquals(0, frequencies.increment("b"));
+        frequencies.add("c", 5);
+
+        List<String> keys = new ArrayList<>();
+        frequencies.forEach((key, count) -> keys.add(key + count));
+        assertEquals(List.of("b2", "a1", "c5"), keys);
+        assertArrayEquals(new String[]{"a", "b", "c"}, frequencies.getSortedKeys());
+        assertEquals(0, frequencies.get("d"));
+        assertEquals(-1, frequencies.indexOf("d"));
+    }
+
+    @Test
+    void keepsIndicesAndCountsAcrossResizes() {
+        Random random = new Random(1);
+        TermFrequencyMap frequencies = new TermFrequencyMap();
+        Map<String, Integer> expected = new HashMap<>();
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < 50000; i++) {
+            String key = "w" + random.nextInt(5000);
+            int index = frequencies.increment(key);
+            assertEquals(indices.computeIfAbsent(key, k -> indices.size()), index);
+            expected.merge(key, 1, Integer::sum);
+        }
+
+        assertEquals(expected.size(), frequencies.size());
+        expected.forEach((key, count) -> {
+            assertEquals(count, frequencies.get(key));
+            int index = frequencies.indexOf(key);
+            assertEquals(key, frequencies.getKey(index));
+            assertEquals(count, frequencies.getCount(index));
+        });
+    }
+
+    @Test
+    void isEmptyAfterClear() {
+        TermFrequencyMap frequencies = new TermFrequencyMap();
+        for (int i = 0; i < 100000; i++) {
+            frequencies.increment("w" + i);
+        }
+
+        frequencies.clear();
+        assertTrue(frequencies.isEmpty());
+        assertEquals(0, frequencies.get("w1"));
+        assertEquals(0, frequencies.increment("w1"));
+        assertEquals(1, frequencies.get("w1"));
+    }
+}
@@ -0,0 +1,50 @@
+package searchengine.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextTokenizerTest {
+
+    @Test
+    void splitsWordsByScriptAndSeparators() {
+        String text = "Привет, world! ёЖик-2024 mixСмесь";
+        List<String> words = new ArrayList<>();
+        List<TextTokenizer.Script> scripts = new ArrayList<>();
+        TextTokenizer.tokenize(text, (script, start, end) -> {
+            words.add(text.substring(start, end));
+            scripts.add(script);
+        });
+
+        assertEquals(List.of("Привет", "world", "ёЖик", "mix", "Смесь"), words);
+        assertEquals(List.of(TextTokenizer.Script.CYRILLIC, TextTokenizer.Script.LATIN
+                , TextTokenizer.Script.CYRILLIC, TextTokenizer.Script.LATIN, TextTokenizer.Script.CYRILLIC), scripts);
+    }
+
+    @Test
+    void handlesTextWithoutWords() {
+        List<String> words = new ArrayList<>();
+        TextTokenizer.tokenize("  123 ... !", (script, start, end) -> words.add("word"));
+
+        assertTrue(words.isEmpty());
+    }
+
+    @Test
+    void lowersCaseOfWordPart() {
+        assertEquals("ёлка", TextTokenizer.toLowerCase("Ёлка", 0, 4));
+        assertEquals("word", TextTokenizer.toLowerCase("a WORD b", 2, 6));
+    }
+
+    @Test
+    void findsBoundaryWithoutSplittingWords() {
+        String text = "один два";
+
+        assertEquals(4, TextTokenizer.findTokenBoundary(text, 2, text.length()));
+        assertEquals(4, TextTokenizer.findTokenBoundary(text, 4, text.length()));
+        assertEquals(0, TextTokenizer.findTokenBoundary(text, 0, text.length()));
+        assertEquals(text.length(), TextTokenizer.findTokenBoundary(text, 6, text.length()));
+    }
+}
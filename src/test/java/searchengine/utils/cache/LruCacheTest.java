@@ -0,0 +1,57 @@
+package searchengine.utils.cache;
+
+import org.junit.jupiter.api.Test;
+import searchengine.data.statistics.CacheMetrics;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() {
+        LruCache<String, Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void loadsMissingValueOnce() {
+        LruCache<String, Integer> cache = new LruCache<>(10);
+        int[] loadCount = {0};
+
+        cache.computeIfAbsent("a", key -> ++loadCount[0]);
+        cache.computeIfAbsent("a", key -> ++loadCount[0]);
+
+        assertEquals(1, loadCount[0]);
+        CacheMetrics metrics = cache.getMetrics("test");
+        assertEquals(1, metrics.getHitCount());
+        assertEquals(1, metrics.getMissCount());
+    }
+
+    @Test
+    void expiredEntryIsMiss() throws InterruptedException {
+        LruCache<String, Integer> cache = new LruCache<>(10, 20);
+        cache.put("a", 1);
+        assertEquals(1, cache.get("a"));
+
+        Thread.sleep(40);
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void zeroSizeDisablesCaching() {
+        LruCache<String, Integer> cache = new LruCache<>(0);
+        cache.put("a", 1);
+
+        assertNull(cache.get("a"));
+    }
+}
@@ -0,0 +1,104 @@
+package searchengine.utils.crawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import searchengine.config.SitesList;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterVisitedLinkSetTest {
+    private static final String SITE_URL = "https://example.com";
+    private static final int CAPACITY = 1000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @TempDir
+    Path checkpointDirectory;
+
+    @Test
+    void sizesBitsFromCapacity() throws IOException {
+        // m = -n * ln(p) / ln(2)^2 = 9586 бит, то есть 150 слов по 64 бита
+        assertEquals(150, getWordCount(new BloomFilterVisitedLinkSet(CAPACITY, FALSE_POSITIVE_RATE)));
+        assertEquals(1498, getWordCount(new BloomFilterVisitedLinkSet(CAPACITY * 10, FALSE_POSITIVE_RATE)));
+        assertEquals(1, getWordCount(new BloomFilterVisitedLinkSet(1, FALSE_POSITIVE_RATE)));
+    }
+
+    @Test
+    void hasNoFalseNegatives() {
+        BloomFilterVisitedLinkSet visitedLinks = new BloomFilterVisitedLinkSet(CAPACITY, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < CAPACITY; i++) {
+            visitedLinks.add("/page/" + i);
+        }
+
+        for (int i = 0; i < CAPACITY; i++) {
+            assertTrue(visitedLinks.contains("/page/" + i));
+            assertFalse(visitedLinks.add("/page/" + i));
+        }
+    }
+
+    @Test
+    void keepsFalsePositiveRateNearConfigured() {
+        BloomFilterVisitedLinkSet visitedLinks = new BloomFilterVisitedLinkSet(CAPACITY, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < CAPACITY; i++) {
+            visitedLinks.add("/page/" + i);
+        }
+
+        int falsePositiveCount = 0;
+        for (int i = 0; i < 100_000; i++) {
+            falsePositiveCount += visitedLinks.contains("/other/" + i) ? 1 : 0;
+        }
+        assertTrue(falsePositiveCount < 100_000 * FALSE_POSITIVE_RATE * 2, "false positives: " + falsePositiveCount);
+    }
+
+    @Test
+    void restoresFromCheckpoint() throws IOException {
+        CrawlCheckpointStore store = createStore();
+        BloomFilterVisitedLinkSet visitedLinks = new BloomFilterVisitedLinkSet(CAPACITY, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < CAPACITY; i++) {
+            visitedLinks.add("/page/" + i);
+        }
+
+        store.save(SITE_URL, new CrawlFrontier(), visitedLinks);
+        BloomFilterVisitedLinkSet restoredLinks = new BloomFilterVisitedLinkSet(CAPACITY, FALSE_POSITIVE_RATE);
+        store.load(SITE_URL, new CrawlFrontier(), restoredLinks);
+
+        for (int i = 0; i < CAPACITY; i++) {
+            assertTrue(restoredLinks.contains("/page/" + i));
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(
+                Files.newInputStream(Files.list(checkpointDirectory).findFirst().orElseThrow()))))) {
+            assertEquals(2, input.readInt());
+            assertEquals(BloomFilterVisitedLinkSet.class.getSimpleName(), input.readUTF());
+        }
+    }
+
+    @Test
+    void rejectsCheckpointOfAnotherCapacity() throws IOException {
+        CrawlCheckpointStore store = createStore();
+        store.save(SITE_URL, new CrawlFrontier(), new BloomFilterVisitedLinkSet(CAPACITY, FALSE_POSITIVE_RATE));
+
+        assertThrows(IOException.class, () -> store.load(SITE_URL, new CrawlFrontier()
+                , new BloomFilterVisitedLinkSet(CAPACITY * 10, FALSE_POSITIVE_RATE)));
+    }
+
+    private static int getWordCount(BloomFilterVisitedLinkSet visitedLinks) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        visitedLinks.writeTo(new DataOutputStream(bytes));
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())).readInt();
+    }
+
+    private CrawlCheckpointStore createStore() {
+        SitesList sites = new SitesList();
+        sites.setCheckpointDirectory(checkpointDirectory.toString());
+        return new CrawlCheckpointStore(sites);
+    }
+}
@@ -0,0 +1,75 @@
+package searchengine.utils.crawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import searchengine.config.SitesList;
+import searchengine.data.siteindexing.FrontierLink;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrawlCheckpointStoreTest {
+    private static final String SITE_URL = "https://example.com";
+
+    @TempDir
+    Path checkpointDirectory;
+
+    @Test
+    void restoresFrontierAndVisitedLinks() throws IOException {
+        CrawlCheckpointStore store = createStore();
+        CrawlFrontier frontier = new CrawlFrontier();
+        VisitedLinkSet visitedLinks = new ConcurrentVisitedLinkSet();
+        frontier.addUnvisited(new FrontierLink(SITE_URL + "/a", 1, 2.5), "/a", visitedLinks);
+        frontier.addUnvisited(new FrontierLink(SITE_URL + "/b", 2), "/b", visitedLinks);
+        frontier.addUnvisited(new FrontierLink(SITE_URL + "/c", 3), "/c", visitedLinks);
+        FrontierLink inFlightLink = frontier.poll();
+        visitedLinks.add("/done");
+
+        store.save(SITE_URL, frontier, visitedLinks);
+        CrawlFrontier restoredFrontier = new CrawlFrontier();
+        VisitedLinkSet restoredLinks = new ConcurrentVisitedLinkSet();
+        store.load(SITE_URL, restoredFrontier, restoredLinks);
+
+        List<FrontierLink> links = restoredFrontier.getSnapshot().stream()
+                .sorted(Comparator.comparing(FrontierLink::getLink)).toList();
+        assertEquals(3, links.size());
+        assertEquals(inFlightLink.getLink(), links.get(0).getLink());
+        assertEquals(1, links.get(0).getDepth());
+        assertEquals(2.5, links.get(0).getPriority());
+        assertEquals(SITE_URL + "/c", links.get(2).getLink());
+        assertEquals(3, links.get(2).getDepth());
+        for (String path : List.of("/a", "/b", "/c", "/done")) {
+            assertTrue(restoredLinks.contains(path), path);
+        }
+        assertFalse(restoredLinks.contains("/other"));
+    }
+
+    @Test
+    void rejectsCheckpointOfAnotherVisitedSetType() throws IOException {
+        CrawlCheckpointStore store = createStore();
+        store.save(SITE_URL, new CrawlFrontier(), new ConcurrentVisitedLinkSet());
+
+        assertTrue(store.exists(SITE_URL));
+        assertThrows(IOException.class, () -> store.load(SITE_URL, new CrawlFrontier()
+                , new BloomFilterVisitedLinkSet(100, 0.01)));
+    }
+
+    @Test
+    void deletesCheckpoint() throws IOException {
+        CrawlCheckpointStore store = createStore();
+        store.save(SITE_URL, new CrawlFrontier(), new ConcurrentVisitedLinkSet());
+        store.delete(SITE_URL);
+
+        assertFalse(store.exists(SITE_URL));
+    }
+
+    private CrawlCheckpointStore createStore() {
+        SitesList sites = new SitesList();
+        sites.setCheckpointDirectory(checkpointDirectory.toString());
+        return new CrawlCheckpointStore(sites);
+    }
+}
@@ -0,0 +1,95 @@
+package searchengine.utils.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RobotsRulesTest {
+    private static final String USER_AGENT = "SearchEngineBot/1.0";
+
+    @Test
+    void longestMatchingRuleWins() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow: /private
+                Allow: /private/public
+                """, USER_AGENT);
+
+        assertFalse(rules.isAllowed("/private"));
+        assertFalse(rules.isAllowed("/private/secret"));
+        assertTrue(rules.isAllowed("/private/public/page"));
+        assertTrue(rules.isAllowed("/other"));
+    }
+
+    @Test
+    void allowWinsRuleOfEqualLength() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow: /page
+                Allow: /page
+                """, USER_AGENT);
+
+        assertTrue(rules.isAllowed("/page"));
+    }
+
+    @Test
+    void dollarAnchorsPatternToPathEnd() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow: /*.pdf$
+                Disallow: /exact$
+                """, USER_AGENT);
+
+        assertFalse(rules.isAllowed("/docs/file.pdf"));
+        assertTrue(rules.isAllowed("/docs/file.pdf?download=1"));
+        assertFalse(rules.isAllowed("/exact"));
+        assertTrue(rules.isAllowed("/exact/more"));
+    }
+
+    @Test
+    void starMatchesAnySequence() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow: /*/print
+                Disallow: /search*q=
+                """, USER_AGENT);
+
+        assertFalse(rules.isAllowed("/news/print"));
+        assertFalse(rules.isAllowed("/news/2024/print/page"));
+        assertFalse(rules.isAllowed("/search?lang=ru&q=test"));
+        assertTrue(rules.isAllowed("/news"));
+        assertTrue(rules.isAllowed("/search"));
+    }
+
+    @Test
+    void usesMostSpecificAgentGroup() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow: /
+
+                User-agent: searchenginebot
+                Disallow: /admin
+                Crawl-delay: 1.5
+
+                Sitemap: https://example.com/sitemap.xml
+                """, USER_AGENT);
+
+        assertTrue(rules.isAllowed("/page"));
+        assertFalse(rules.isAllowed("/admin/users"));
+        assertEquals(1500, rules.getCrawlDelay());
+        assertEquals(List.of("https://example.com/sitemap.xml"), rules.getSitemaps());
+    }
+
+    @Test
+    void emptyDisallowAllowsEverything() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow:
+                """, USER_AGENT);
+
+        assertTrue(rules.isAllowed("/any/path"));
+        assertEquals(-1, rules.getCrawlDelay());
+    }
+}
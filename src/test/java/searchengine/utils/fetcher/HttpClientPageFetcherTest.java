@@ -0,0 +1,124 @@
+package searchengine.utils.fetcher;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import searchengine.config.FetcherSettings;
+import searchengine.config.JsoupSettings;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpClientPageFetcherTest {
+    private static final String HTML = "<html><body>" + "<p>Текст страницы для сжатия</p>".repeat(2000)
+            + "</body></html>";
+    private HttpServer server;
+    private FetcherSettings fetcherSettings;
+    private String contentEncoding;
+    private byte[] responseBody;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+            exchange.getResponseHeaders().add("Content-Encoding", contentEncoding);
+            exchange.sendResponseHeaders(200, responseBody.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(responseBody);
+            }
+        });
+        server.start();
+        fetcherSettings = new FetcherSettings();
+        fetcherSettings.setHttp2(false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void decodesGzipBody() throws Exception {
+        assertEquals(HTML, fetchBody("gzip", gzip(HTML)));
+    }
+
+    @Test
+    void decodesZlibDeflateBody() throws Exception {
+        assertEquals(HTML, fetchBody("deflate", deflate(HTML, false)));
+    }
+
+    @Test
+    void decodesRawDeflateBody() throws Exception {
+        assertEquals(HTML, fetchBody("deflate", deflate(HTML, true)));
+    }
+
+    @Test
+    void keepsDecodedPartOfTruncatedBody() throws Exception {
+        byte[] compressedBody = gzip(HTML);
+        fetcherSettings.setMaxBodySize(compressedBody.length / 2);
+
+        String body = fetchBody("gzip", compressedBody);
+
+        assertFalse(body.isEmpty());
+        assertTrue(HTML.startsWith(body));
+    }
+
+    @Test
+    void keepsDecodedPartOfCorruptDeflateBody() throws Exception {
+        byte[] compressedBody = deflate(HTML, false);
+        // неверная контрольная сумма adler32 в конце потока zlib
+        compressedBody[compressedBody.length - 1] ^= 0xFF;
+
+        String body = fetchBody("deflate", compressedBody);
+
+        assertFalse(body.isEmpty());
+        assertTrue(HTML.startsWith(body));
+    }
+
+    @Test
+    void returnsEmptyBodyForWrongGzipHeader() throws Exception {
+        assertEquals("", fetchBody("gzip", HTML.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private String fetchBody(String encoding, byte[] body) throws Exception {
+        contentEncoding = encoding;
+        responseBody = body;
+        JsoupSettings jsoupSettings = new JsoupSettings();
+        jsoupSettings.setUserAgent("test");
+        jsoupSettings.setReferer("http://localhost");
+        HttpClientPageFetcher fetcher = new HttpClientPageFetcher(jsoupSettings, fetcherSettings);
+
+        FetchResult result = fetcher.fetch("http://127.0.0.1:" + server.getAddress().getPort() + "/", null);
+        assertEquals(200, result.getStatus());
+        return new String(result.getBody(), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutput = new GZIPOutputStream(output)) {
+            gzipOutput.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] deflate(String text, boolean isRaw) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, isRaw);
+        try (DeflaterOutputStream deflaterOutput = new DeflaterOutputStream(output, deflater)) {
+            deflaterOutput.write(text.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            deflater.end();
+        }
+        return output.toByteArray();
+    }
+}
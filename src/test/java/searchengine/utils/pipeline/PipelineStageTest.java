@@ -0,0 +1,67 @@
+package searchengine.utils.pipeline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineStageTest {
+    private static final int ITEM_COUNT = 20;
+
+    @Test
+    void downstreamStageWaitsForItemsHeldByUpstreamWorkers() throws InterruptedException {
+        AtomicBoolean isProducerActive = new AtomicBoolean(true);
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        PipelineStage<Integer> parseStage = new PipelineStage<>("parse", ITEM_COUNT, 2, 1, 0);
+        PipelineStage<Integer> writeStage = new PipelineStage<>("write", ITEM_COUNT, 1, 5, 10);
+        parseStage.start(items -> items.forEach(item -> {
+            sleep(20);
+            putItem(writeStage, item);
+        }), isProducerActive::get);
+        writeStage.start(written::addAll, () -> !parseStage.isTerminated());
+
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            parseStage.put(i);
+        }
+        // источник закончил работу, но потоки разбора еще держат элементы
+        isProducerActive.set(false);
+        awaitTermination(parseStage);
+        awaitTermination(writeStage);
+
+        assertEquals(ITEM_COUNT, written.size());
+    }
+
+    @Test
+    void stageStopsWhenUpstreamIsInactiveAndQueueIsEmpty() throws InterruptedException {
+        PipelineStage<Integer> stage = new PipelineStage<>("write", 10, 2, 5, 10);
+        stage.start(items -> { }, () -> false);
+
+        awaitTermination(stage);
+        assertTrue(stage.isTerminated());
+    }
+
+    private static void awaitTermination(PipelineStage<?> stage) throws InterruptedException {
+        for (int i = 0; i < 500 && !stage.isTerminated(); i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void putItem(PipelineStage<Integer> stage, int item) {
+        try {
+            stage.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
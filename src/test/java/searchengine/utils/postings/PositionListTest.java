@@ -0,0 +1,83 @@
+package searchengine.utils.postings;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionListTest {
+
+    @Test
+    void decodesEncodedPositionsAndOffsets() {
+        PositionList positionList = new PositionList();
+        positionList.add(0, 0);
+        positionList.add(3, 17);
+        positionList.add(200, 1500);
+        positionList.add(100000, 2000000);
+
+        PositionList decoded = PositionList.decode(positionList.encode());
+
+        assertArrayEquals(new int[]{0, 3, 200, 100000}, decoded.getPositions());
+        assertArrayEquals(new int[]{0, 17, 1500, 2000000}, decoded.getOffsets());
+    }
+
+    @Test
+    void encodesEmptyList() {
+        PositionList decoded = PositionList.decode(new PositionList().encode());
+
+        assertEquals(0, decoded.size());
+    }
+
+    @Test
+    void shiftsAppendedPositions() {
+        PositionList positionList = new PositionList();
+        positionList.add(1, 5);
+        PositionList next = new PositionList();
+        next.add(0, 40);
+        next.add(2, 52);
+
+        positionList.addShifted(next, 10);
+        PositionList decoded = PositionList.decode(positionList.encode());
+
+        assertArrayEquals(new int[]{1, 10, 12}, decoded.getPositions());
+        assertArrayEquals(new int[]{5, 40, 52}, decoded.getOffsets());
+    }
+
+    @Test
+    void appendedPostingsMatchPostingsOfWholeText() {
+        String[] lemmas = {"кот", null, "пес", "кот", "дом", null, "пес", "кот"};
+        PagePostings whole = new PagePostings();
+        PagePostings left = new PagePostings();
+        PagePostings right = new PagePostings();
+        for (int i = 0; i < lemmas.length; i++) {
+            whole.addToken(lemmas[i], i * 4);
+            (i < 3 ? left : right).addToken(lemmas[i], i * 4);
+        }
+
+        left.append(right);
+
+        assertEquals(whole.getTokenCount(), left.getTokenCount());
+        for (String lemma : new String[]{"кот", "пес", "дом"}) {
+            assertEquals(whole.getFrequencies().get(lemma), left.getFrequencies().get(lemma));
+            assertArrayEquals(whole.getPositionList(lemma).encode(), left.getPositionList(lemma).encode());
+        }
+        assertArrayEquals(new int[]{0, 3, 7}, left.getPositionList("кот").getPositions());
+        assertNull(left.getPositionList("нет"));
+    }
+
+    @Test
+    void clearedPostingsCanBeReused() {
+        PagePostings postings = new PagePostings();
+        postings.addToken("кот", 0);
+        postings.addToken("пес", 4);
+        PagePostings copy = postings.copy();
+
+        postings.clear();
+        postings.addToken("дом", 0);
+
+        assertTrue(postings.getPositionList("кот") == null || postings.getFrequencies().get("кот") == 0);
+        assertArrayEquals(new int[]{0}, postings.getPositionList("дом").getPositions());
+        assertEquals(1, postings.getTokenCount());
+        assertArrayEquals(new int[]{1}, copy.getPositionList("пес").getPositions());
+        assertEquals(2, copy.getTokenCount());
+    }
+}
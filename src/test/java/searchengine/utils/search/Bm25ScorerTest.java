@@ -0,0 +1,79 @@
+package searchengine.utils.search;
+
+import org.junit.jupiter.api.Test;
+import searchengine.data.search.CorpusStatistics;
+import searchengine.data.search.IndexRow;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Bm25ScorerTest {
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int SMALL_SITE_ID = 1;
+    private static final int LARGE_SITE_ID = 2;
+
+    @Test
+    void scoresEqualPagesOfDifferentSitesEqually() {
+        InvertedIndex invertedIndex = new InvertedIndex();
+        // лемма "кот" на 1 странице из 100 маленького сайта и на 100 из 1000 большого
+        List<IndexRow> rows = new ArrayList<>();
+        addSitePages(rows, SMALL_SITE_ID, 0, 100, 1);
+        addSitePages(rows, LARGE_SITE_ID, 1000, 1000, 100);
+        invertedIndex.addIndices(rows);
+
+        CorpusStatistics corpusStatistics = invertedIndex.getCorpusStatistics(List.of(SMALL_SITE_ID, LARGE_SITE_ID)
+                , List.of("кот"));
+        double smallSiteScore = score(invertedIndex, SMALL_SITE_ID, 0, corpusStatistics);
+        double largeSiteScore = score(invertedIndex, LARGE_SITE_ID, 1000, corpusStatistics);
+
+        assertEquals(1100, corpusStatistics.getPageCount());
+        assertEquals(101, corpusStatistics.getDocumentFrequency("кот"));
+        assertEquals(smallSiteScore, largeSiteScore, 1e-9);
+
+        // со статистикой каждого сайта отдельно страница маленького сайта оказалась бы выше
+        double separateSmallSiteScore = score(invertedIndex, SMALL_SITE_ID, 0
+                , invertedIndex.getCorpusStatistics(List.of(SMALL_SITE_ID), List.of("кот")));
+        double separateLargeSiteScore = score(invertedIndex, LARGE_SITE_ID, 1000
+                , invertedIndex.getCorpusStatistics(List.of(LARGE_SITE_ID), List.of("кот")));
+        assertTrue(separateSmallSiteScore > separateLargeSiteScore);
+    }
+
+    @Test
+    void followsBm25Formula() {
+        PostingList postingList = new PostingList("кот");
+        postingList.add(1, 3, null);
+        postingList.add(2, 1, null);
+        CorpusStatistics corpusStatistics = new CorpusStatistics(10, 20, Map.of("кот", 2));
+        Bm25Scorer scorer = new Bm25Scorer(List.of(postingList), K1, B, corpusStatistics);
+
+        double idf = Math.log(1 + (10 - 2 + 0.5) / (2 + 0.5));
+        double expected = idf * 3 * (K1 + 1) / (3 + K1 * (1 - B + B * 40 / 20.0));
+        assertEquals(expected, scorer.score(1, 40), 1e-9);
+        assertEquals(0, scorer.score(3, 40));
+    }
+
+    private static double score(InvertedIndex invertedIndex, int siteId, int pageId
+            , CorpusStatistics corpusStatistics) {
+        return invertedIndex.read(() -> new Bm25Scorer(List.of(invertedIndex.getPostingList(siteId, "кот")), K1, B
+                , corpusStatistics).score(pageId, invertedIndex.getPageLength(pageId)));
+    }
+
+    /**
+     * Страницы сайта с одинаковой длиной 10 слов; первые lemmaPageCount содержат лемму "кот" дважды.
+     */
+    private static void addSitePages(List<IndexRow> rows, int siteId, int firstPageId, int pageCount
+            , int lemmaPageCount) {
+        for (int pageId = firstPageId; pageId < firstPageId + pageCount; pageId++) {
+            if (pageId - firstPageId < lemmaPageCount) {
+                rows.add(new IndexRow(siteId, pageId, "кот", 2, null));
+                rows.add(new IndexRow(siteId, pageId, "дом", 8, null));
+            } else {
+                rows.add(new IndexRow(siteId, pageId, "дом", 10, null));
+            }
+        }
+    }
+}
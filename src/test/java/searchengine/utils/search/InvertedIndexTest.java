@@ -0,0 +1,85 @@
+package searchengine.utils.search;
+
+import org.junit.jupiter.api.Test;
+import searchengine.data.search.IndexRow;
+import searchengine.data.siteindexing.IndexedPage;
+import searchengine.model.PageEntity;
+import searchengine.model.SiteEntity;
+import searchengine.utils.postings.PagePostings;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+    private static final int SITE_ID = 1;
+
+    @Test
+    void replacesReaddedPage() {
+        InvertedIndex invertedIndex = new InvertedIndex();
+        invertedIndex.addPages(List.of(createPage(1, "кот", "кот", "пес")));
+        invertedIndex.addPages(List.of(createPage(2, "кот")));
+
+        invertedIndex.addPages(List.of(createPage(1, "кот", "дом")));
+
+        assertEquals(2, invertedIndex.getSitePageCount(SITE_ID));
+        assertEquals(2, invertedIndex.getPageLength(1));
+        assertEquals(1.5, invertedIndex.getAveragePageLength(SITE_ID));
+        assertEquals(2, invertedIndex.getPostingList(SITE_ID, "кот").size());
+        assertEquals(1, invertedIndex.getPostingList(SITE_ID, "кот").getRating(0));
+        assertNull(invertedIndex.getPostingList(SITE_ID, "пес"));
+        assertEquals(1, invertedIndex.getPostingList(SITE_ID, "дом").size());
+    }
+
+    @Test
+    void skipsLoadedRowsOfPagesAlreadyInIndex() {
+        InvertedIndex invertedIndex = new InvertedIndex();
+        invertedIndex.addPages(List.of(createPage(1, "кот", "кот")));
+
+        invertedIndex.addIndices(List.of(new IndexRow(SITE_ID, 1, "кот", 2, null)
+                , new IndexRow(SITE_ID, 1, "пес", 1, null), new IndexRow(SITE_ID, 2, "кот", 3, null)));
+
+        assertEquals(2, invertedIndex.getSitePageCount(SITE_ID));
+        assertEquals(2, invertedIndex.getPageLength(1));
+        assertEquals(3, invertedIndex.getPageLength(2));
+        assertEquals(2.5, invertedIndex.getAveragePageLength(SITE_ID));
+        assertNull(invertedIndex.getPostingList(SITE_ID, "пес"));
+        assertEquals(2, invertedIndex.getPostingList(SITE_ID, "кот").size());
+    }
+
+    @Test
+    void removesPageFromListsAndStatistics() {
+        InvertedIndex invertedIndex = new InvertedIndex();
+        invertedIndex.addPages(List.of(createPage(1, "кот", "пес"), createPage(2, "кот", "кот", "кот")));
+        long generation = invertedIndex.getGeneration();
+
+        invertedIndex.removePage(1);
+
+        assertEquals(1, invertedIndex.getSitePageCount(SITE_ID));
+        assertEquals(0, invertedIndex.getPageLength(1));
+        assertEquals(3.0, invertedIndex.getAveragePageLength(SITE_ID));
+        assertNull(invertedIndex.getPostingList(SITE_ID, "пес"));
+        PostingList postingList = invertedIndex.getPostingList(SITE_ID, "кот");
+        assertEquals(1, postingList.size());
+        assertEquals(2, postingList.getPageId(0));
+        assertTrue(invertedIndex.getGeneration() > generation);
+
+        generation = invertedIndex.getGeneration();
+        invertedIndex.removePage(1);
+        assertEquals(generation, invertedIndex.getGeneration());
+    }
+
+    private static IndexedPage createPage(int pageId, String... lemmas) {
+        PageEntity page = new PageEntity();
+        page.setId(pageId);
+        page.setSite(new SiteEntity().setId(SITE_ID));
+        PagePostings postings = new PagePostings();
+        for (int i = 0; i < lemmas.length; i++) {
+            postings.addToken(lemmas[i], i * 4);
+        }
+        IndexedPage indexedPage = new IndexedPage();
+        indexedPage.setPage(page);
+        indexedPage.setPostings(postings);
+        return indexedPage;
+    }
+}
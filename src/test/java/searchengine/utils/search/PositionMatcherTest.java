@@ -0,0 +1,62 @@
+package searchengine.utils.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionMatcherTest {
+
+    @Test
+    void findsAdjacentPhrase() {
+        assertTrue(PositionMatcher.containsPhrase(List.of(new int[]{5, 20}, new int[]{2, 21, 40})
+                , new int[]{0, 1}));
+        assertFalse(PositionMatcher.containsPhrase(List.of(new int[]{5, 20}, new int[]{4, 22})
+                , new int[]{0, 1}));
+    }
+
+    @Test
+    void matchesPhraseWithRepeatedTerm() {
+        int[] positions = {3, 10, 11};
+
+        assertTrue(PositionMatcher.containsPhrase(List.of(positions, positions), new int[]{0, 1}));
+        assertFalse(PositionMatcher.containsPhrase(List.of(new int[]{3, 10}, new int[]{3, 10})
+                , new int[]{0, 1}));
+    }
+
+    @Test
+    void keepsGapOfSkippedWords() {
+        // "кот на окне": предлог без леммы занимает позицию 1
+        int[] offsets = {0, 2};
+
+        assertTrue(PositionMatcher.containsPhrase(List.of(new int[]{4}, new int[]{6}), offsets));
+        assertFalse(PositionMatcher.containsPhrase(List.of(new int[]{4}, new int[]{5}), offsets));
+        assertFalse(PositionMatcher.containsPhrase(List.of(new int[]{4}, new int[]{7}), offsets));
+    }
+
+    @Test
+    void ignoresCandidatesBeforeTextStart() {
+        assertFalse(PositionMatcher.containsPhrase(List.of(new int[]{8}, new int[]{0}), new int[]{0, 1}));
+    }
+
+    @Test
+    void findsMinWindowOfAllTerms() {
+        assertEquals(3, PositionMatcher.getMinWindow(List.of(new int[]{1, 50}, new int[]{10, 52})));
+        assertEquals(1, PositionMatcher.getMinWindow(List.of(new int[]{7}, new int[]{7})));
+        assertEquals(4, PositionMatcher.getMinWindow(List.of(new int[]{0, 30}, new int[]{3, 100}
+                , new int[]{2, 31})));
+    }
+
+    @Test
+    void reportsTooLargeGapAsWideWindow() {
+        assertEquals(91, PositionMatcher.getMinWindow(List.of(new int[]{10}, new int[]{100})));
+    }
+
+    @Test
+    void handlesEmptyPositionLists() {
+        assertFalse(PositionMatcher.containsPhrase(List.of(new int[0], new int[]{1}), new int[]{0, 1}));
+        assertEquals(Integer.MAX_VALUE, PositionMatcher.getMinWindow(List.of(new int[0], new int[]{1})));
+        assertEquals(Integer.MAX_VALUE, PositionMatcher.getMinWindow(List.of()));
+    }
+}
@@ -0,0 +1,83 @@
+package searchengine.utils.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostingIntersectionTest {
+
+    @Test
+    void mergesListsOfComparableSize() {
+        PostingList first = createList("a", 1, 3, 5, 7, 9, 11);
+        PostingList second = createList("b", 2, 3, 4, 9, 10, 11, 12);
+
+        assertFalse(second.isDense());
+        assertArrayEquals(new int[]{3, 9, 11}, PostingIntersection.intersect(List.of(first, second)));
+    }
+
+    @Test
+    void gallopsThroughMuchLongerList() {
+        PostingList shortList = createList("a", 0, 15, 500, 5000, 9990, 20000);
+        PostingList longList = createList("b", IntStream.range(0, 1000).map(i -> i * 10).toArray());
+
+        assertFalse(longList.isDense());
+        assertArrayEquals(new int[]{0, 500, 5000, 9990}
+                , PostingIntersection.intersect(List.of(longList, shortList)));
+    }
+
+    @Test
+    void checksDenseListByBitmap() {
+        PostingList denseList = createList("a", IntStream.range(100, 1100).filter(i -> i % 3 != 0).toArray());
+        PostingList shortList = createList("b", 50, 100, 101, 102, 600, 1099, 1200);
+
+        assertTrue(denseList.isDense());
+        assertArrayEquals(new int[]{100, 101, 1099}
+                , PostingIntersection.intersect(List.of(denseList, shortList)));
+    }
+
+    @Test
+    void matchesNaiveIntersectionOnRandomLists() {
+        Random random = new Random(42);
+        for (int test = 0; test < 200; test++) {
+            List<PostingList> lists = new ArrayList<>();
+            TreeSet<Integer> expected = null;
+            int listCount = 1 + random.nextInt(4);
+            for (int i = 0; i < listCount; i++) {
+                int range = 1 + random.nextInt(5000);
+                TreeSet<Integer> ids = new TreeSet<>();
+                int size = random.nextInt(Math.min(range, 1500));
+                while (ids.size() < size) {
+                    ids.add(random.nextInt(range));
+                }
+                lists.add(createList("l" + i, ids.stream().mapToInt(Integer::intValue).toArray()));
+                if (expected == null) {
+                    expected = new TreeSet<>(ids);
+                } else {
+                    expected.retainAll(ids);
+                }
+            }
+
+            assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray()
+                    , PostingIntersection.intersect(lists));
+        }
+    }
+
+    @Test
+    void returnsEmptyResultForNoLists() {
+        assertEquals(0, PostingIntersection.intersect(List.of()).length);
+    }
+
+    private static PostingList createList(String lemma, int... pageIds) {
+        PostingList postingList = new PostingList(lemma);
+        for (int pageId : pageIds) {
+            postingList.add(pageId, 1, null);
+        }
+        return postingList;
+    }
+}
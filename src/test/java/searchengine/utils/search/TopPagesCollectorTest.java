@@ -0,0 +1,84 @@
+package searchengine.utils.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopPagesCollectorTest {
+
+    @Test
+    void keepsBestPagesFromBestToWorst() {
+        TopPagesCollector topPages = new TopPagesCollector(3);
+        topPages.offer(1, 0.5);
+        topPages.offer(2, 2.0);
+        topPages.offer(3, 1.0);
+        topPages.offer(4, 3.0);
+        topPages.offer(5, 0.1);
+        topPages.sort();
+
+        assertEquals(5, topPages.getTotalCount());
+        assertEquals(3, topPages.size());
+        assertEquals(4, topPages.getPageId(0));
+        assertEquals(2, topPages.getPageId(1));
+        assertEquals(3, topPages.getPageId(2));
+        assertEquals(3.0, topPages.getScore(0));
+    }
+
+    @Test
+    void prefersSmallerPageIdOnEqualScore() {
+        TopPagesCollector topPages = new TopPagesCollector(2);
+        topPages.offer(30, 1.0);
+        topPages.offer(10, 1.0);
+        topPages.offer(20, 1.0);
+        topPages.sort();
+
+        assertEquals(10, topPages.getPageId(0));
+        assertEquals(20, topPages.getPageId(1));
+    }
+
+    @Test
+    void acceptsOnlyPagesBetterThanWorstSelected() {
+        TopPagesCollector topPages = new TopPagesCollector(2);
+        assertTrue(topPages.canAccept(1, 0));
+        topPages.offer(1, 1.0);
+        topPages.offer(2, 2.0);
+
+        assertFalse(topPages.canAccept(3, 0.5));
+        assertFalse(topPages.canAccept(3, 1.0));
+        assertTrue(topPages.canAccept(0, 1.0));
+        assertTrue(topPages.canAccept(3, 1.5));
+    }
+
+    @Test
+    void matchesFullSortOnRandomScores() {
+        Random random = new Random(7);
+        int capacity = 20;
+        double[] scores = IntStream.range(0, 1000).mapToDouble(i -> random.nextInt(100)).toArray();
+        TopPagesCollector topPages = new TopPagesCollector(capacity);
+        for (int pageId = 0; pageId < scores.length; pageId++) {
+            topPages.offer(pageId, scores[pageId]);
+        }
+        topPages.sort();
+
+        List<Integer> expected = IntStream.range(0, scores.length).boxed()
+                .sorted(Comparator.comparingDouble((Integer id) -> -scores[id]).thenComparingInt(id -> id))
+                .limit(capacity).toList();
+        for (int i = 0; i < capacity; i++) {
+            assertEquals(expected.get(i), topPages.getPageId(i));
+        }
+    }
+
+    @Test
+    void countsPagesWithZeroCapacity() {
+        TopPagesCollector topPages = new TopPagesCollector(0);
+        topPages.offer(1, 1.0);
+
+        assertEquals(0, topPages.size());
+        assertEquals(1, topPages.getTotalCount());
+    }
+}